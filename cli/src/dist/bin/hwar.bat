@@ -0,0 +1,30 @@
+@echo off
+rem Headless HolyWorld AutoReply engine, see README ("CLI").
+rem The first classify run dumps an AppCDS archive (lib\hwar.jsa) for the JDK in use.
+setlocal
+
+set APP_HOME=%~dp0..
+set JSA=%APP_HOME%\lib\hwar.jsa
+
+set JAVA_EXE=java.exe
+if defined JAVA_HOME set JAVA_EXE=%JAVA_HOME%\bin\java.exe
+
+rem classify is a short run: C1 only, serial GC, no perf data file, the CDS archive. Every other
+rem command measures or stresses the engine and gets the JVM's default JIT and GC, as in the game.
+set FAST=
+set CDS=
+if not "%~1"=="classify" goto run
+set FAST=-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -XX:-UsePerfData -Xshare:auto
+if exist "%JSA%" (
+    set CDS="-XX:SharedArchiveFile=%JSA%"
+) else (
+    set CDS="-XX:ArchiveClassesAtExit=%JSA%"
+)
+
+:run
+"%JAVA_EXE%" %FAST% %CDS% ^
+    -Xlog:disable -Xlog:all=warning:stderr ^
+    -Dslf4j.provider=org.slf4j.simple.SimpleServiceProvider ^
+    %HWAR_OPTS% -jar "%APP_HOME%\lib\hwar.jar" %*
+
+exit /b %ERRORLEVEL%
@@ -0,0 +1,178 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.CheckMessage;
+import com.holyworld.autoreply.ai.CheckPhase;
+import com.holyworld.autoreply.ai.ResponseEngine;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Headless entry point over engine-core, for scripting against chat logs without a Minecraft client.
+ *
+ * Usage:
+ *   hwar classify [--seed N] [--phases] [file...]  reads stdin when no file is given
+ *   hwar diff --corpus ... --baseline ...  see CorpusDiff
+ *   hwar bench-players [--players N]       see PlayerTableBench
+ *   hwar first-reply [--warmup]            see FirstReplyBench
+ *   hwar stress [--trials N] [scenario...] see StateStress
+ *   hwar fuzz [--lines N] [--seed N]       see CheckFuzz
+ *   hwar mine [--threads N] file|dir...    see CatchallMiner
+ *
+ * classify prints one tab-separated line per check message: player, category, response
+ * ("-" for a ban signal). Input lines are raw chat log lines with "[CHECK] player -> message"
+ * or "player&lt;TAB&gt;message"; anything else is skipped. Player state carries over between
+ * lines, so a log replays like the live conversation did. --phases adds a summary on stderr
+ * of how many rules each check phase scanned per message against the full rule list.
+ */
+public class AutoReplyCli {
+
+    private static final String USAGE = "Usage: hwar classify [--seed N] [--phases] [file...]\n"
+        + "       hwar diff --corpus <file> --baseline <jar|dir> [options]\n"
+        + "       hwar bench-players [--players N] [--rounds N]\n"
+        + "       hwar first-reply [--warmup]\n"
+        + "       hwar stress [--trials N] [scenario...]\n"
+        + "       hwar fuzz [--lines N] [--seed N] [--max-p999-us N] [--legacy-limit-ms N] [--no-hardened]\n"
+        + "       hwar mine [--threads N] [--top N] [--capacity N] file|dir...";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        switch (args[0]) {
+            case "classify":
+                System.exit(classify(rest));
+                break;
+            case "diff":
+                CorpusDiff.main(rest);
+                break;
+            case "bench-players":
+                System.exit(PlayerTableBench.run(rest));
+                break;
+            case "first-reply":
+                System.exit(FirstReplyBench.run(rest));
+                break;
+            case "stress":
+                System.exit(StateStress.run(rest));
+                break;
+            case "fuzz":
+                System.exit(CheckFuzz.run(rest));
+                break;
+            case "mine":
+                System.exit(CatchallMiner.run(rest));
+                break;
+            default:
+                System.err.println(USAGE);
+                System.exit(2);
+        }
+    }
+
+    // ======================== CLASSIFY ========================
+
+    private static int classify(String[] args) throws IOException {
+        long seed = 42;
+        boolean phases = false;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--phases")) {
+                phases = true;
+            } else if (args[i].startsWith("--")) {
+                System.err.println(USAGE);
+                return 2;
+            } else {
+                files.add(args[i]);
+            }
+        }
+
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        engine.setEvaluationBudgetNanos(0);
+        ResponseEngine.seedThread(seed);
+
+        // Chat text is Cyrillic, do not depend on the platform console encoding
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+            false, StandardCharsets.UTF_8);
+        try {
+            if (files.isEmpty()) {
+                classify(engine, new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), out);
+            } else {
+                for (String file : files) {
+                    try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                        classify(engine, reader, out);
+                    }
+                }
+            }
+        } finally {
+            out.flush();
+            ResponseEngine.unseedThread();
+        }
+        if (phases) printPhases(engine);
+        return 0;
+    }
+
+    private static void printPhases(ResponseEngine engine) {
+        long messages = 0;
+        long scanned = 0;
+        System.err.printf("%-12s %8s %8s %8s%n", "phase", "messages", "rules", "scanned");
+        for (CheckPhase phase : CheckPhase.values()) {
+            long n = engine.getPhaseMessages(phase);
+            long s = engine.getPhaseRulesScanned(phase);
+            messages += n;
+            scanned += s;
+            System.err.printf("%-12s %8d %8d %8.1f%n", phase, n, engine.getPhaseRuleCount(phase), n == 0 ? 0.0 : (double) s / n);
+        }
+        System.err.printf("%-12s %8d %8d %8.1f%n", "all", messages, engine.getRuleCount(), messages == 0 ? 0.0 : (double) scanned / messages);
+        for (CheckPhase from : CheckPhase.values()) {
+            for (CheckPhase to : CheckPhase.values()) {
+                long n = engine.getPhaseTransitions(from, to);
+                if (n > 0) System.err.printf("  %s -> %s: %d%n", from, to, n);
+            }
+        }
+    }
+
+    private static void classify(ResponseEngine engine, BufferedReader reader, PrintStream out) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] check = splitLine(line);
+            if (check == null) continue;
+            String player = check[0];
+            String message = check[1];
+
+            String response = engine.getResponse(message, player);
+            ResponseEngine.PlayerState state = engine.getPlayerState(player);
+            String category = state != null && state.lastResponseCategory != null ? state.lastResponseCategory : "-";
+            out.append(player).append('\t').append(category).append('\t')
+                .append(response != null ? response : "-").append('\n');
+        }
+    }
+
+    /**
+     * Player and message of a "[CHECK] player -> message" or "player&lt;TAB&gt;message" line, else null.
+     */
+    static String[] splitLine(String line) {
+        String player;
+        String message;
+        int tab = line.indexOf('\t');
+        if (tab > 0) {
+            player = line.substring(0, tab);
+            message = line.substring(tab + 1);
+        } else {
+            CheckMessage parsed = CheckMessage.parse(line);
+            if (parsed == null) return null;
+            player = parsed.player;
+            message = parsed.message;
+        }
+        if (player.isEmpty() || message.trim().isEmpty()) return null;
+        return new String[]{player, message};
+    }
+}
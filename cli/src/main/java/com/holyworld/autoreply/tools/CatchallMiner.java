@@ -0,0 +1,286 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.ResponseEngine;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Finds what players say that no rule understands, to suggest new keywords.
+ *
+ * Log files (plain or .gz, directories are expanded) are split across a fork/join pool, one file
+ * per leaf task with its own engine. Every check message is answered as classify would; the words
+ * and word pairs of messages that fall into catchall are counted in fixed-size Space-Saving
+ * summaries (HeavyHitters), merged up the task tree. Each phrase is reported with the category
+ * the player's previous answered message had, the rule the phrase most likely belongs to.
+ * Memory does not grow with the corpus: summaries are fixed and an engine is replaced once it
+ * has seen MAX_PLAYERS_PER_ENGINE players. Usage:
+ *   hwar mine [--threads N] [--top 30] [--capacity 4096] file|dir...
+ */
+public class CatchallMiner {
+
+    private static final String USAGE = "Usage: hwar mine [--threads N] [--top N] [--capacity N] file|dir...";
+
+    private static final String CATCHALL = "catchall";
+    // Words shorter than this are only counted as part of a pair ("а это")
+    private static final int MIN_WORD_LENGTH = 2;
+    private static final int MAX_PLAYERS_PER_ENGINE = 20_000;
+
+    /**
+     * Counts of one subtree of files.
+     */
+    private static final class Summary {
+        HeavyHitters words;
+        HeavyHitters pairs;
+        long lines;
+        long checkMessages;
+        long catchall;
+
+        Summary(int capacity) {
+            words = new HeavyHitters(capacity);
+            pairs = new HeavyHitters(capacity);
+        }
+
+        Summary merge(Summary other) {
+            words = HeavyHitters.merge(words, other.words);
+            pairs = HeavyHitters.merge(pairs, other.pairs);
+            lines += other.lines;
+            checkMessages += other.checkMessages;
+            catchall += other.catchall;
+            return this;
+        }
+    }
+
+    // Category name to the id HeavyHitters counts; 0 is "no answered message yet"
+    private final Map<String, Integer> categoryIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCategoryId = new AtomicInteger(1);
+    private final int capacity;
+
+    private CatchallMiner(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public static int run(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int top = 30;
+        int capacity = 4096;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--top") && i + 1 < args.length) {
+                top = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--capacity") && i + 1 < args.length) {
+                capacity = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println(USAGE);
+                return 2;
+            } else {
+                addFiles(Paths.get(args[i]), files);
+            }
+        }
+        if (files.isEmpty() || threads < 1 || capacity < 1) {
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        CatchallMiner miner = new CatchallMiner(capacity);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Summary summary;
+        try {
+            summary = pool.invoke(miner.new Mine(files, 0, files.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Phrases are Cyrillic, do not depend on the platform console encoding
+        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+        out.printf("%d files, %d lines, %d check messages, %d in catchall (%.1f%%) in %.1f s (%.0f lines/s, %d threads)%n",
+            files.size(), summary.lines, summary.checkMessages, summary.catchall,
+            summary.checkMessages == 0 ? 0.0 : 100.0 * summary.catchall / summary.checkMessages,
+            seconds, summary.lines / Math.max(seconds, 1e-9), threads);
+        String[] categories = miner.categoryNames();
+        print(out, "Word pairs in catchall messages:", summary.pairs.top(top), categories);
+        print(out, "Words in catchall messages:", summary.words.top(top), categories);
+        out.flush();
+        return 0;
+    }
+
+    private static void addFiles(Path path, List<Path> files) throws IOException {
+        if (!Files.isDirectory(path)) {
+            files.add(path);
+            return;
+        }
+        try (Stream<Path> children = Files.list(path)) {
+            files.addAll(children.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private static void print(PrintStream out, String title, List<HeavyHitters.Entry> entries, String[] categories) {
+        out.printf("%n%s%n", title);
+        out.printf("  %8s %7s  %-16s %6s  %s%n", "count", "+-", "after category", "share", "phrase");
+        for (HeavyHitters.Entry e : entries) {
+            // Category counts cover the occurrences seen while tracked, count - error of them
+            long tracked = Math.max(1, e.count - e.error);
+            out.printf("  %8d %7d  %-16s %5.0f%%  %s%n", e.count, e.error, categories[e.category],
+                100.0 * Math.min(e.categoryCount, tracked) / tracked, e.phrase);
+        }
+    }
+
+    // ======================== MINING ========================
+
+    /**
+     * Files [from, to): one file is mined directly, more are split in half.
+     */
+    private final class Mine extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+
+        Mine(List<Path> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from == 1) {
+                try {
+                    return mine(files.get(from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            Mine left = new Mine(files, from, middle);
+            left.fork();
+            Summary right = new Mine(files, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private Summary mine(Path file) throws IOException {
+        Summary summary = new Summary(capacity);
+        ResponseEngine engine = newEngine();
+        // Category id of each player's last answered message, by engine player id
+        int[] context = new int[1024];
+        StringBuilder word = new StringBuilder();
+        StringBuilder previous = new StringBuilder();
+        StringBuilder pair = new StringBuilder();
+
+        try (BufferedReader reader = open(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                summary.lines++;
+                String[] check = AutoReplyCli.splitLine(line);
+                if (check == null) continue;
+
+                if (engine.getPlayers().size() >= MAX_PLAYERS_PER_ENGINE) {
+                    engine = newEngine();
+                    Arrays.fill(context, 0);
+                }
+                int id = engine.getPlayers().idOf(check[0]);
+                if (id >= context.length) context = Arrays.copyOf(context, Math.max(id + 1, context.length * 2));
+
+                ResponseEngine.PlayerState before = engine.getPlayerState(id);
+                int count = before == null ? 0 : before.messageCount;
+                engine.getResponse(check[1], id);
+                ResponseEngine.PlayerState state = engine.getPlayerState(id);
+                // Empty after normalization, nothing was evaluated
+                if (state == null || state.messageCount == count || state.lastResponseCategory == null) continue;
+                summary.checkMessages++;
+
+                if (state.lastResponseCategory.equals(CATCHALL)) {
+                    summary.catchall++;
+                    count(check[1], context[id], summary, word, previous, pair);
+                } else {
+                    context[id] = categoryId(state.lastResponseCategory);
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Lowercased letter and digit runs of the message: each long enough one as a word,
+     * every two neighbours as a pair.
+     */
+    private static void count(String message, int category, Summary summary,
+                              StringBuilder word, StringBuilder previous, StringBuilder pair) {
+        word.setLength(0);
+        previous.setLength(0);
+        for (int i = 0; i <= message.length(); i++) {
+            char c = i < message.length() ? message.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+                continue;
+            }
+            if (word.length() == 0) continue;
+
+            if (word.length() >= MIN_WORD_LENGTH) summary.words.add(word, category);
+            if (previous.length() > 0) {
+                pair.setLength(0);
+                pair.append(previous).append(' ').append(word);
+                summary.pairs.add(pair, category);
+            }
+            previous.setLength(0);
+            previous.append(word);
+            word.setLength(0);
+        }
+    }
+
+    private static ResponseEngine newEngine() {
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        engine.setEvaluationBudgetNanos(0);
+        return engine;
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private int categoryId(String category) {
+        return categoryIds.computeIfAbsent(category, c -> nextCategoryId.getAndIncrement());
+    }
+
+    private String[] categoryNames() {
+        String[] names = new String[HeavyHitters.MAX_CATEGORIES];
+        Arrays.fill(names, "other");
+        names[0] = "-";
+        categoryIds.forEach((name, id) -> {
+            if (id < HeavyHitters.MAX_CATEGORIES - 1) names[id] = name;
+        });
+        return names;
+    }
+}
@@ -0,0 +1,379 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.CheckMessage;
+import com.holyworld.autoreply.ai.ResponseEngine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Adversarial input for the [CHECK] path.
+ *
+ * Differential part: random lines built from the pieces the patterns care about (markers,
+ * color codes, arrows, dashes, whitespace, Cyrillic) go through CheckMessage and through the
+ * regexes it replaced, and must give the same player, message and pattern. Lines with more
+ * than one [CHECK] are left out: the regexes could match at any marker, the parser looks at
+ * the first one only.
+ *
+ * Latency part: families of long crafted lines plus the random ones go through what
+ * ChatHandler does in hardened mode (line cap, parse, getResponse with the budget counted from
+ * the line's arrival) and the time per line is reported as p50 / p99 / p99.9 / max. The old
+ * regexes are timed on the crafted lines too, each run cut off after --legacy-limit-ms. Usage:
+ *   hwar fuzz [--lines 20000] [--seed 1] [--max-p999-us 1000] [--legacy-limit-ms 200] [--no-hardened]
+ *
+ * Both wall-clock and thread CPU time are measured. The gate uses thread CPU time, the clock the
+ * evaluation budget is counted in: on a loaded or single-core machine a line is regularly
+ * descheduled for a whole scheduler tick (4 ms on most kernels), which says nothing about the
+ * path itself. Exit code 1 on a parser mismatch, when p99.9 exceeds --max-p999-us, or in
+ * hardened mode when any line used more CPU time than the evaluation budget.
+ */
+public class CheckFuzz {
+
+    private static final String USAGE = "Usage: hwar fuzz [--lines N] [--seed N] [--max-p999-us N] [--legacy-limit-ms N] [--no-hardened]";
+
+    private static final String[] PIECES = {
+        "[CHECK]", "\u00a7d\u00a7l", "\u00a7f", "\u00a75", "\u00a75->", "->", "-", ">", "--", "->->",
+        " ", "  ", "\t", "\n", "\u00a7", "&a", "\u00a7r", "&", "Nick_1", "x", "_", "7", "\u0430\u0431\u0432",
+        "\u043f\u0440\u0438\u0432\u0435\u0442", "\u00a0", "\u2028", ".", "?", "[", "]"
+    };
+
+    private static final int[] LENGTHS = {256, 1024, 4096, 16384};
+    private static final int REPEATS = 50;
+    // Wall time beyond CPU time after which a line counts as descheduled
+    private static final long DESCHEDULED_NANOS = 1_000_000;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static int run(String[] args) {
+        int lines = 20000;
+        long seed = 1;
+        long maxP999Micros = 1000;
+        long legacyLimitMs = 200;
+        boolean hardened = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--lines") && i + 1 < args.length) {
+                lines = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--max-p999-us") && i + 1 < args.length) {
+                maxP999Micros = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--legacy-limit-ms") && i + 1 < args.length) {
+                legacyLimitMs = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--no-hardened")) {
+                hardened = false;
+            } else {
+                System.err.println(USAGE);
+                return 2;
+            }
+        }
+
+        Random random = new Random(seed);
+        List<String> randomLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            randomLines.add(randomLine(random));
+        }
+
+        int mismatches = differential(randomLines);
+
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        engine.setHardened(hardened);
+
+        // Untimed passes first so the timings below are of compiled code
+        long[] times = new long[2];
+        for (int pass = 0; pass < 2; pass++) {
+            for (String line : randomLines) chatPath(engine, line, times);
+            for (int length : LENGTHS) {
+                for (String[] family : crafted(length)) {
+                    for (int r = 0; r < REPEATS; r++) chatPath(engine, family[1], times);
+                }
+            }
+        }
+
+        // Timed pass on its own, so neither the regexes nor the generators leave garbage in between
+        System.gc();
+        long overBudgetBefore = engine.getOverBudget();
+        List<String[]> families = new ArrayList<>();
+        for (int length : LENGTHS) families.addAll(crafted(length));
+        long[] worst = new long[families.size()];
+        int total = randomLines.size() + families.size() * REPEATS;
+        long[] wall = new long[total];
+        long[] cpu = new long[total];
+        int descheduled = 0;
+        int n = 0;
+        for (int f = 0; f < families.size(); f++) {
+            for (int r = 0; r < REPEATS; r++) {
+                chatPath(engine, families.get(f)[1], times);
+                wall[n] = times[0];
+                cpu[n++] = times[1];
+                worst[f] = Math.max(worst[f], times[1]);
+                if (times[0] - times[1] > DESCHEDULED_NANOS) descheduled++;
+            }
+        }
+        for (String line : randomLines) {
+            chatPath(engine, line, times);
+            wall[n] = times[0];
+            cpu[n++] = times[1];
+            if (times[0] - times[1] > DESCHEDULED_NANOS) descheduled++;
+        }
+        long overBudget = engine.getOverBudget() - overBudgetBefore;
+
+        System.out.printf("%nCrafted lines, worst CPU time of %d on the %s path vs one run of the old regexes (limit %d ms):%n",
+            REPEATS, hardened ? "hardened" : "unhardened", legacyLimitMs);
+        System.out.printf("  %-16s %7s %12s %12s%n", "family", "chars", "path us", "regex ms");
+        for (int f = 0; f < families.size(); f++) {
+            String[] family = families.get(f);
+            long legacy = LegacyParser.time(family[1], legacyLimitMs);
+            System.out.printf("  %-16s %7d %12.1f %12s%n", family[0], family[1].length(), worst[f] / 1000.0,
+                legacy < 0 ? ">" + legacyLimitMs : String.format("%.1f", legacy / 1e6));
+        }
+
+        Arrays.sort(wall, 0, n);
+        Arrays.sort(cpu, 0, n);
+        System.out.println();
+        printPercentiles("Chat path over " + n + " lines, wall:", wall, n);
+        printPercentiles("Chat path over " + n + " lines, CPU: ", cpu, n);
+        System.out.printf("Descheduled for over %d ms: %d lines%n", DESCHEDULED_NANOS / 1_000_000, descheduled);
+        System.out.printf("Truncated messages: %d, over budget while timed: %d%n", engine.getTruncated(), overBudget);
+
+        boolean slow = percentile(cpu, n, 0.999) > maxP999Micros * 1000;
+        if (slow) System.out.printf("CPU p99.9 above %d us%n", maxP999Micros);
+        long budget = engine.getEvaluationBudgetNanos();
+        boolean unbounded = hardened && budget > 0 && cpu[n - 1] > budget;
+        if (unbounded) System.out.printf("CPU max above the %d us evaluation budget%n", budget / 1000);
+        return mismatches > 0 || slow || unbounded ? 1 : 0;
+    }
+
+    private static void printPercentiles(String title, long[] sorted, int n) {
+        System.out.printf("%s p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n", title,
+            percentile(sorted, n, 0.5) / 1000.0, percentile(sorted, n, 0.99) / 1000.0,
+            percentile(sorted, n, 0.999) / 1000.0, sorted[n - 1] / 1000.0);
+    }
+
+    // ======================== DIFFERENTIAL ========================
+
+    private static int differential(List<String> lines) {
+        int compared = 0;
+        int mismatches = 0;
+        for (String line : lines) {
+            int marker = line.indexOf(CheckMessage.MARKER);
+            if (marker < 0 || marker != line.lastIndexOf(CheckMessage.MARKER)) continue;
+            compared++;
+
+            CheckMessage parsed = CheckMessage.parse(line);
+            String[] expected = LegacyParser.parse(line, marker + CheckMessage.MARKER.length());
+            String[] actual = parsed == null ? null : new String[]{parsed.player, parsed.message, parsed.pattern};
+            if (!Arrays.equals(expected, actual)) {
+                if (mismatches++ < 10) {
+                    System.out.printf("MISMATCH %s%n  regex:  %s%n  parser: %s%n",
+                        escape(line), describe(expected), describe(actual));
+                }
+            }
+        }
+        System.out.printf("Parser vs old regexes: %d lines compared, %d mismatches%n", compared, mismatches);
+        return mismatches;
+    }
+
+    private static String describe(String[] groups) {
+        return groups == null ? "null" : escape(groups[0]) + " | " + escape(groups[1]) + " | " + groups[2];
+    }
+
+    private static String escape(String s) {
+        return s.replace("\u00a7", "$").replace("\n", "\\n").replace("\t", "\\t").replace("\u2028", "\\u2028");
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean()) sb.append("[12:00:01] [Render thread/INFO]: [System] [CHAT] ");
+        int before = random.nextInt(3);
+        for (int i = 0; i < before; i++) sb.append(piece(random));
+        if (random.nextInt(3) == 0) sb.append("\u00a7d\u00a7l");
+        sb.append(CheckMessage.MARKER);
+        int after = random.nextInt(14);
+        for (int i = 0; i < after; i++) sb.append(piece(random));
+        return sb.toString();
+    }
+
+    private static String piece(Random random) {
+        // Markers are rare after the first one, so most lines stay comparable
+        String piece = PIECES[random.nextInt(PIECES.length)];
+        return piece.equals(CheckMessage.MARKER) && random.nextInt(4) != 0 ? "->" : piece;
+    }
+
+    // ======================== LATENCY ========================
+
+    /**
+     * Name and text of each crafted family at roughly the given length.
+     */
+    private static List<String[]> crafted(int length) {
+        List<String[]> families = new ArrayList<>();
+        families.add(new String[]{"dash-space", "[CHECK] " + repeat("- ", length / 2)});
+        families.add(new String[]{"color-dash", "[CHECK]" + repeat("\u00a7-", length / 2)});
+        families.add(new String[]{"colored-no-arrow", "\u00a7d\u00a7l[CHECK] \u00a7f" + repeat("a\u00a75-", length / 4)});
+        families.add(new String[]{"spaces", "[CHECK]" + repeat(" ", length) + "x"});
+        families.add(new String[]{"nonword-arrows", "[CHECK] " + repeat("-> ", length / 3)});
+        families.add(new String[]{"long-message", "[CHECK] Nick -> " + repeat("\u0430\u0431 ", length / 3)});
+        return families;
+    }
+
+    /**
+     * What ChatHandler does with a [CHECK] line; wall and thread CPU nanoseconds go to times[0] and times[1].
+     */
+    private static void chatPath(ResponseEngine engine, String line, long[] times) {
+        long cpuStart = THREADS.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        if (line.length() <= CheckMessage.MAX_LINE_LENGTH || !engine.isHardened()) {
+            CheckMessage parsed = CheckMessage.parse(line);
+            if (parsed != null) engine.getResponse(parsed.message, engine.getPlayers().idOf(parsed.player), start);
+        }
+        times[0] = System.nanoTime() - start;
+        times[1] = THREADS.getCurrentThreadCpuTime() - cpuStart;
+    }
+
+    private static long percentile(long[] sorted, int n, double q) {
+        int index = (int) Math.ceil(q * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, index))];
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) sb.append(s);
+        return sb.toString();
+    }
+
+    // ======================== OLD PARSER ========================
+
+    /**
+     * The regex parser CheckMessage used before, kept as the reference for the differential
+     * part and the baseline for the timings.
+     */
+    private static final class LegacyParser {
+
+        private static final Pattern CHECK_PATTERN_COLORED = Pattern.compile(
+            "\\u00a7d\\u00a7l\\[CHECK\\]\\s*\\u00a7f(\\S+)\\s*\\u00a75->\\s*(.*)"
+        );
+        private static final Pattern CHECK_PATTERN_CLEAN = Pattern.compile(
+            "\\[CHECK\\]\\s+(\\S+)\\s+->\\s+(.*)"
+        );
+        private static final Pattern CHECK_PATTERN_PARTIAL = Pattern.compile(
+            "\\[CHECK\\]\\s*[^\\w]*(\\S+)\\s*[^\\w]*->\\s*(.*)"
+        );
+
+        private static final class Timeout extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+
+            Timeout() {
+                super(null, null, false, false);
+            }
+        }
+
+        /**
+         * A string that throws once its deadline passes, which is the only way to stop a backtracking regex.
+         */
+        private static final class Limited implements CharSequence {
+            private final String text;
+            private final long deadline;
+            private int reads;
+
+            Limited(String text, long deadline) {
+                this.text = text;
+                this.deadline = deadline;
+            }
+
+            @Override
+            public char charAt(int index) {
+                if ((++reads & 0xFFF) == 0 && System.nanoTime() - deadline > 0) throw new Timeout();
+                return text.charAt(index);
+            }
+
+            @Override
+            public int length() {
+                return text.length();
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return text.subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return text;
+            }
+        }
+
+        /**
+         * Nanoseconds the three patterns took on the line, -1 past the limit.
+         */
+        static long time(String line, long limitMs) {
+            long start = System.nanoTime();
+            Limited limited = new Limited(line, start + limitMs * 1_000_000);
+            try {
+                if (!CHECK_PATTERN_COLORED.matcher(limited).find() && !CHECK_PATTERN_CLEAN.matcher(limited).find()) {
+                    CHECK_PATTERN_PARTIAL.matcher(limited).find();
+                }
+            } catch (Timeout e) {
+                return -1;
+            }
+            return System.nanoTime() - start;
+        }
+
+        /**
+         * Player, message and pattern name, or null; the old CheckMessage.parse.
+         */
+        static String[] parse(String rawMessage, int markerEnd) {
+            String playerName = null;
+            String playerMessage = null;
+            String pattern = "none";
+
+            Matcher m = CHECK_PATTERN_COLORED.matcher(rawMessage);
+            if (m.find()) {
+                playerName = m.group(1);
+                playerMessage = m.group(2);
+                pattern = "colored";
+            }
+            if (playerName == null) {
+                m = CHECK_PATTERN_CLEAN.matcher(rawMessage);
+                if (m.find()) {
+                    playerName = m.group(1);
+                    playerMessage = m.group(2);
+                    pattern = "clean";
+                }
+            }
+            if (playerName == null) {
+                m = CHECK_PATTERN_PARTIAL.matcher(rawMessage);
+                if (m.find()) {
+                    playerName = m.group(1);
+                    playerMessage = m.group(2);
+                    pattern = "partial";
+                }
+            }
+            if (playerName == null) {
+                String afterCheck = strip(rawMessage.substring(markerEnd)).trim();
+                int arrowIdx = afterCheck.indexOf("->");
+                if (arrowIdx > 0) {
+                    playerName = afterCheck.substring(0, arrowIdx).trim();
+                    playerMessage = afterCheck.substring(arrowIdx + 2).trim();
+                    pattern = "manual";
+                }
+            }
+            if (playerName == null || playerMessage == null) return null;
+
+            playerName = strip(playerName).trim();
+            playerMessage = strip(playerMessage).trim();
+            if (playerName.isEmpty() || playerMessage.isEmpty()) return null;
+            return new String[]{playerName, playerMessage, pattern};
+        }
+
+        private static String strip(String input) {
+            return input.replaceAll("\u00a7[0-9a-fk-orA-FK-OR]", "")
+                .replaceAll("&[0-9a-fk-orA-FK-OR]", "");
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.CheckMessage;
+import com.holyworld.autoreply.ai.ResponseEngine;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless golden-corpus diff between two versions of the rule set.
+ *
+ * Runs every message of a corpus through a baseline and a candidate ResponseEngine with
+ * deterministic, per-message seeded pick(), then reports category changes grouped by the
+ * baseline rule. Baseline results are cached by corpus, seed and baseline artifact hash,
+ * so repeated runs against the same baseline only evaluate the candidate.
+ *
+ * Usage (also available as "hwar diff", see the cli module):
+ *   CorpusDiff --corpus checks.txt --baseline old.jar [--candidate new.jar] [--seed 42]
+ *              [--threads N] [--cache-dir .corpus-diff] [--samples 3] [--fail-on-change]
+ *
+ * Corpus lines are either "player&lt;TAB&gt;message" or raw chat log lines with "[CHECK] player -> message".
+ * Without --candidate the engine-core classes on the tool's own classpath are used. Baselines built
+ * before engine-core was split out also need fabric-loader on the classpath.
+ */
+public class CorpusDiff {
+
+    private static final String ENGINE_CLASS = "com.holyworld.autoreply.ai.ResponseEngine";
+    private static final String ISOLATED_PREFIX = "com.holyworld.autoreply.";
+    private static final int CACHE_MAGIC = 0x48574344; // "HWCD"
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    // ======================== ENTRY ========================
+
+    public static void main(String[] args) throws Exception {
+        // Chat text is Cyrillic, do not depend on the platform console encoding
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8));
+
+        Map<String, String> opts = parseArgs(args);
+        if (!opts.containsKey("corpus") || !opts.containsKey("baseline")) {
+            System.err.println("Usage: CorpusDiff --corpus <file> --baseline <jar|dir> [--candidate <jar|dir>]"
+                + " [--seed N] [--threads N] [--cache-dir dir] [--samples N] [--fail-on-change]");
+            System.exit(2);
+        }
+
+        Path corpusFile = Paths.get(opts.get("corpus"));
+        Path baselinePath = Paths.get(opts.get("baseline"));
+        Path candidatePath = opts.containsKey("candidate")
+            ? Paths.get(opts.get("candidate"))
+            : Paths.get(ResponseEngine.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        int threads = Integer.parseInt(opts.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Path cacheDir = Paths.get(opts.getOrDefault("cache-dir", ".corpus-diff"));
+        int samples = Integer.parseInt(opts.getOrDefault("samples", "3"));
+
+        long t0 = System.nanoTime();
+        Corpus corpus = Corpus.load(corpusFile);
+        System.out.printf("Corpus: %d messages, %d players (sha256 %s) loaded in %d ms%n",
+            corpus.size(), corpus.playerCount(), corpus.hash.substring(0, 16), millisSince(t0));
+
+        String cacheKey = sha256(corpus.hash + ":" + seed + ":" + hashArtifact(baselinePath)).substring(0, 24);
+        Path cacheFile = cacheDir.resolve("baseline-" + cacheKey + ".bin");
+
+        Results baseline;
+        t0 = System.nanoTime();
+        if (Files.exists(cacheFile)) {
+            baseline = Results.read(cacheFile, corpus.size());
+            System.out.printf("Baseline: cached (%s) loaded in %d ms%n", cacheFile.getFileName(), millisSince(t0));
+        } else {
+            baseline = evaluate(new EngineHandle(baselinePath), corpus, seed, threads);
+            System.out.printf("Baseline: evaluated in %d ms%n", millisSince(t0));
+            Files.createDirectories(cacheDir);
+            baseline.write(cacheFile);
+        }
+
+        t0 = System.nanoTime();
+        Results candidate = evaluate(new EngineHandle(candidatePath), corpus, seed, threads);
+        long candidateMs = millisSince(t0);
+        System.out.printf("Candidate: evaluated in %d ms (%.0f msg/s)%n",
+            candidateMs, corpus.size() * 1000.0 / Math.max(1, candidateMs));
+
+        int changed = report(corpus, baseline, candidate, samples);
+        if (changed > 0 && opts.containsKey("fail-on-change")) {
+            System.exit(1);
+        }
+    }
+
+    // ======================== EVALUATION ========================
+
+    /**
+     * Evaluate the corpus with one engine per shard. Messages are sharded by player so every
+     * player's conversation runs in order on a single engine, and each message is seeded from
+     * its index, so results are identical for any thread count.
+     */
+    private static Results evaluate(EngineHandle handle, Corpus corpus, long seed, int threads) throws Exception {
+        Results results = new Results(corpus.size());
+
+        int[][] shards = corpus.shardByPlayer(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int[] shard : shards) {
+                futures.add(pool.submit(() -> {
+                    Object engine = handle.newEngine();
+                    try {
+                        for (int idx : shard) {
+                            handle.seedThread(seed ^ (idx * SEED_MIX));
+                            String response = handle.getResponse(engine, corpus.messages[idx], corpus.players[idx]);
+                            results.categories[idx] = handle.lastCategory(engine, corpus.players[idx]);
+                            results.responses[idx] = response;
+                        }
+                    } finally {
+                        handle.unseedThread();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    // ======================== REPORT ========================
+
+    private static class Change {
+        int count = 0;
+        final List<Integer> samples = new ArrayList<>();
+    }
+
+    private static int report(Corpus corpus, Results baseline, Results candidate, int maxSamples) {
+        // baseline category -> candidate category -> change
+        Map<String, Map<String, Change>> byRule = new TreeMap<>();
+        Map<String, Integer> textOnly = new TreeMap<>();
+        int changed = 0;
+
+        for (int i = 0; i < corpus.size(); i++) {
+            String before = baseline.categories[i];
+            String after = candidate.categories[i];
+            if (!Objects.equals(before, after)) {
+                changed++;
+                Change c = byRule.computeIfAbsent(String.valueOf(before), k -> new TreeMap<>())
+                    .computeIfAbsent(String.valueOf(after), k -> new Change());
+                c.count++;
+                if (c.samples.size() < maxSamples) c.samples.add(i);
+            } else if (!Objects.equals(baseline.responses[i], candidate.responses[i])) {
+                textOnly.merge(String.valueOf(before), 1, Integer::sum);
+            }
+        }
+
+        System.out.printf("Category changes: %d of %d (%.3f%%)%n",
+            changed, corpus.size(), changed * 100.0 / Math.max(1, corpus.size()));
+
+        List<Map.Entry<String, Map<String, Change>>> rules = new ArrayList<>(byRule.entrySet());
+        rules.sort((a, b) -> Integer.compare(total(b.getValue()), total(a.getValue())));
+        for (Map.Entry<String, Map<String, Change>> rule : rules) {
+            System.out.printf("%n[%s] %d changed%n", rule.getKey(), total(rule.getValue()));
+            List<Map.Entry<String, Change>> targets = new ArrayList<>(rule.getValue().entrySet());
+            targets.sort((a, b) -> Integer.compare(b.getValue().count, a.getValue().count));
+            for (Map.Entry<String, Change> target : targets) {
+                System.out.printf("    -> %-18s %d%n", target.getKey(), target.getValue().count);
+                for (int idx : target.getValue().samples) {
+                    System.out.printf("         %s: \"%s\"%n", corpus.players[idx], corpus.messages[idx]);
+                }
+            }
+        }
+
+        if (!textOnly.isEmpty()) {
+            System.out.println();
+            System.out.println("Same category, different response text:");
+            for (Map.Entry<String, Integer> e : textOnly.entrySet()) {
+                System.out.printf("    %-22s %d%n", e.getKey(), e.getValue());
+            }
+        }
+        return changed;
+    }
+
+    private static int total(Map<String, Change> changes) {
+        int sum = 0;
+        for (Change c : changes.values()) sum += c.count;
+        return sum;
+    }
+
+    // ======================== CORPUS ========================
+
+    private static class Corpus {
+        final String[] players;
+        final String[] messages;
+        final String hash;
+
+        private Corpus(String[] players, String[] messages, String hash) {
+            this.players = players;
+            this.messages = messages;
+            this.hash = hash;
+        }
+
+        int size() {
+            return messages.length;
+        }
+
+        int playerCount() {
+            return new HashSet<>(Arrays.asList(players)).size();
+        }
+
+        static Corpus load(Path file) throws Exception {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<String> players = new ArrayList<>();
+            List<String> messages = new ArrayList<>();
+            Map<String, String> names = new HashMap<>();
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new DigestInputStream(Files.newInputStream(file), digest), StandardCharsets.UTF_8), 1 << 16)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String player;
+                    String message;
+                    int tab = line.indexOf('\t');
+                    if (tab > 0) {
+                        player = line.substring(0, tab);
+                        message = line.substring(tab + 1);
+                    } else {
+                        CheckMessage parsed = CheckMessage.parse(line);
+                        if (parsed == null) continue;
+                        player = parsed.player;
+                        message = parsed.message;
+                    }
+                    if (player.isEmpty() || message.trim().isEmpty()) continue;
+                    players.add(names.computeIfAbsent(player, k -> k));
+                    messages.add(message);
+                }
+            }
+            return new Corpus(players.toArray(new String[0]), messages.toArray(new String[0]), hex(digest.digest()));
+        }
+
+        int[][] shardByPlayer(int shardCount) {
+            int[] sizes = new int[shardCount];
+            int[] shardOf = new int[players.length];
+            for (int i = 0; i < players.length; i++) {
+                shardOf[i] = Math.floorMod(players[i].hashCode(), shardCount);
+                sizes[shardOf[i]]++;
+            }
+            int[][] shards = new int[shardCount][];
+            for (int s = 0; s < shardCount; s++) shards[s] = new int[sizes[s]];
+            int[] fill = new int[shardCount];
+            for (int i = 0; i < players.length; i++) {
+                shards[shardOf[i]][fill[shardOf[i]]++] = i;
+            }
+            return shards;
+        }
+    }
+
+    // ======================== RESULTS ========================
+
+    private static class Results {
+        final String[] categories;
+        final String[] responses;
+
+        Results(int size) {
+            this.categories = new String[size];
+            this.responses = new String[size];
+        }
+
+        void write(Path file) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(categories.length);
+                for (int i = 0; i < categories.length; i++) {
+                    writeNullable(out, categories[i]);
+                    writeNullable(out, responses[i]);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        static Results read(Path file, int expectedSize) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (in.readInt() != CACHE_MAGIC) throw new IOException("Not a baseline cache: " + file);
+                int size = in.readInt();
+                if (size != expectedSize) throw new IOException("Baseline cache size mismatch: " + file);
+
+                // Few distinct categories and responses, share the instances
+                Map<String, String> pool = new HashMap<>();
+                Results results = new Results(size);
+                for (int i = 0; i < size; i++) {
+                    results.categories[i] = readNullable(in, pool);
+                    results.responses[i] = readNullable(in, pool);
+                }
+                return results;
+            }
+        }
+
+        private static void writeNullable(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) out.writeUTF(value);
+        }
+
+        private static String readNullable(DataInputStream in, Map<String, String> pool) throws IOException {
+            if (!in.readBoolean()) return null;
+            String value = in.readUTF();
+            return pool.computeIfAbsent(value, k -> k);
+        }
+    }
+
+    // ======================== ENGINE LOADING ========================
+
+    /**
+     * One rule-set version, loaded in its own class loader and driven through reflection
+     * so baseline and candidate can share class names.
+     */
+    private static class EngineHandle {
+        private final Constructor<?> constructor;
+        private final Method getResponse;
+        private final Method getPlayerState;
+        private final Method setVerbose;
+        private final Method seedThread;
+        private final Method unseedThread;
+        // Absent before hardened mode
+        private final Method setEvaluationBudget;
+        private final Field lastCategory;
+
+        EngineHandle(Path location) throws Exception {
+            ClassLoader loader = new IsolatingClassLoader(new URL[]{location.toUri().toURL()},
+                CorpusDiff.class.getClassLoader());
+            Class<?> engine = Class.forName(ENGINE_CLASS, true, loader);
+            Class<?> state = Class.forName(ENGINE_CLASS + "$PlayerState", true, loader);
+            try {
+                this.constructor = engine.getConstructor();
+                this.getResponse = engine.getMethod("getResponse", String.class, String.class);
+                this.getPlayerState = engine.getMethod("getPlayerState", String.class);
+                this.setVerbose = engine.getMethod("setVerbose", boolean.class);
+                this.seedThread = engine.getMethod("seedThread", long.class);
+                this.unseedThread = engine.getMethod("unseedThread");
+                this.lastCategory = state.getField("lastResponseCategory");
+            } catch (NoSuchMethodException | NoSuchFieldException e) {
+                throw new IllegalArgumentException(location + " predates corpus diff support: " + e.getMessage(), e);
+            }
+            Method budget;
+            try {
+                budget = engine.getMethod("setEvaluationBudgetNanos", long.class);
+            } catch (NoSuchMethodException e) {
+                budget = null;
+            }
+            this.setEvaluationBudget = budget;
+        }
+
+        Object newEngine() throws Exception {
+            Object engine = constructor.newInstance();
+            setVerbose.invoke(engine, false);
+            // A timed-out scan answers catchall, which would show up as a spurious change
+            if (setEvaluationBudget != null) setEvaluationBudget.invoke(engine, 0L);
+            return engine;
+        }
+
+        String getResponse(Object engine, String message, String player) throws Exception {
+            return (String) getResponse.invoke(engine, message, player);
+        }
+
+        String lastCategory(Object engine, String player) throws Exception {
+            Object state = getPlayerState.invoke(engine, player);
+            return state == null ? null : (String) lastCategory.get(state);
+        }
+
+        void seedThread(long seed) throws Exception {
+            seedThread.invoke(null, seed);
+        }
+
+        void unseedThread() throws Exception {
+            unseedThread.invoke(null);
+        }
+    }
+
+    /**
+     * Child-first for the mod's own classes, parent-first for everything else (slf4j, loader, JDK).
+     */
+    private static class IsolatingClassLoader extends URLClassLoader {
+
+        IsolatingClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(ISOLATED_PREFIX)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    try {
+                        c = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        c = super.loadClass(name, false);
+                    }
+                }
+                if (resolve) resolveClass(c);
+                return c;
+            }
+        }
+    }
+
+    // ======================== HELPERS ========================
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                opts.put(key, args[++i]);
+            } else {
+                opts.put(key, "true");
+            }
+        }
+        return opts;
+    }
+
+    private static String hashArtifact(Path path) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(path)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path f : files) {
+                digest.update(path.relativize(f).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(f));
+            }
+        } else {
+            digest.update(Files.readAllBytes(path));
+        }
+        return hex(digest.digest());
+    }
+
+    private static String sha256(String text) throws Exception {
+        return hex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,69 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.CheckMessage;
+import com.holyworld.autoreply.ai.EngineWarmup;
+import com.holyworld.autoreply.ai.ResponseEngine;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * First-reply latency in a fresh JVM, the way the mod sees it: engine built at start,
+ * then the first [CHECK] line parsed and answered. Run once with and once without --warmup;
+ * the difference is what the background warm-up buys. Usage:
+ *   hwar first-reply [--warmup]
+ *
+ * The game runs the default tiered JIT, so the numbers only mean something on it: a JVM
+ * limited to C1 (-XX:TieredStopAtLevel) is refused. Per-message logging is off, as in the
+ * warm-up, so only the parse and the evaluation are timed.
+ */
+public class FirstReplyBench {
+
+    private static final String FIRST_LINE =
+        "\u00a7d\u00a7l[CHECK] \u00a7fFreshPlayer \u00a75-> прив за что меня";
+    private static final String[] FOLLOW_UPS = {
+        "[CHECK] FreshPlayer -> что за аник",
+        "[CHECK] FreshPlayer -> скачиваю",
+        "[CHECK] FreshPlayer -> 123 456 789",
+        "[CHECK] FreshPlayer -> ало"
+    };
+    private static final int STEADY_SAMPLES = 1000;
+
+    public static int run(String[] args) throws IOException {
+        boolean warmup = Arrays.asList(args).contains("--warmup");
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-XX:TieredStopAtLevel")) {
+                System.err.println("first-reply needs the full tiered JIT the game uses, drop " + option);
+                return 2;
+            }
+        }
+
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        if (warmup) {
+            long t0 = System.nanoTime();
+            int rounds = EngineWarmup.run();
+            System.out.printf("warm-up: %d rounds in %d ms%n", rounds, (System.nanoTime() - t0) / 1_000_000);
+        }
+
+        long first = timeReply(engine, FIRST_LINE);
+
+        long[] steady = new long[STEADY_SAMPLES];
+        for (int i = 0; i < STEADY_SAMPLES; i++) {
+            steady[i] = timeReply(engine, FOLLOW_UPS[i % FOLLOW_UPS.length]);
+        }
+        Arrays.sort(steady);
+
+        System.out.printf("first reply:  %8.1f us (warm-up %s)%n", first / 1000.0, warmup ? "on" : "off");
+        System.out.printf("next %d median: %6.1f us%n", STEADY_SAMPLES, steady[STEADY_SAMPLES / 2] / 1000.0);
+        return 0;
+    }
+
+    private static long timeReply(ResponseEngine engine, String line) {
+        long t0 = System.nanoTime();
+        CheckMessage parsed = CheckMessage.parse(line);
+        engine.getResponse(parsed.message, parsed.player);
+        return System.nanoTime() - t0;
+    }
+}
@@ -0,0 +1,277 @@
+package com.holyworld.autoreply.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Space-Saving top-k counter over phrases (Metwally et al.), with the rule categories each
+ * phrase co-occurred with.
+ *
+ * Memory is fixed at construction: capacity entries in primitive arrays, a min-heap on count
+ * for eviction and an open-addressing index from the phrase's 64-bit hash to its slot. A phrase
+ * that is not tracked takes over the slot with the smallest count and inherits that count as its
+ * error, so for every reported phrase count - error <= true count <= count. Not thread-safe;
+ * CatchallMiner keeps one per fork/join leaf and merges them.
+ */
+final class HeavyHitters {
+
+    // Category ids at or above this are counted as the last one; 0 is unknown
+    static final int MAX_CATEGORIES = 64;
+
+    static final class Entry {
+        final String phrase;
+        final long count;
+        final long error;
+        // Most frequent co-occurring category id and how many of the counted occurrences had it
+        final int category;
+        final long categoryCount;
+
+        Entry(String phrase, long count, long error, int category, long categoryCount) {
+            this.phrase = phrase;
+            this.count = count;
+            this.error = error;
+            this.category = category;
+            this.categoryCount = categoryCount;
+        }
+    }
+
+    private final int capacity;
+    private final long[] hashes;
+    private final String[] phrases;
+    private final long[] counts;
+    private final long[] errors;
+    // capacity rows of MAX_CATEGORIES counters
+    private final int[] categories;
+    private int size = 0;
+
+    // Slots ordered by count, smallest first, and each slot's position in it
+    private final int[] heap;
+    private final int[] heapIndex;
+
+    // slot + 1, 0 for an empty bucket; linear probing on the phrase hash
+    private final int[] table;
+    private final int mask;
+
+    HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        hashes = new long[capacity];
+        phrases = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        categories = new int[capacity * MAX_CATEGORIES];
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        mask = table.length - 1;
+    }
+
+    /**
+     * Count one occurrence. Allocates only when the phrase is not tracked yet.
+     */
+    void add(CharSequence phrase, int category) {
+        long hash = hash(phrase);
+        int slot = find(hash, phrase);
+        if (slot < 0) {
+            slot = claim(hash, phrase.toString());
+        }
+        counts[slot]++;
+        categories[slot * MAX_CATEGORIES + Math.min(category, MAX_CATEGORIES - 1)]++;
+        siftDown(heapIndex[slot]);
+    }
+
+    /**
+     * Smallest tracked count, the most an untracked phrase can have been seen; 0 while not full.
+     */
+    long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Summary of both streams: counts of the same phrase add up, and a phrase missing from one
+     * side gets that side's minCount added to its count and error. The largest capacity stay.
+     */
+    static HeavyHitters merge(HeavyHitters a, HeavyHitters b) {
+        int capacity = Math.max(a.capacity, b.capacity);
+        long minA = a.minCount();
+        long minB = b.minCount();
+
+        List<long[]> candidates = new ArrayList<>(a.size + b.size);
+        List<String> names = new ArrayList<>(a.size + b.size);
+        List<int[]> rows = new ArrayList<>(a.size + b.size);
+        for (int slot = 0; slot < a.size; slot++) {
+            int other = b.find(a.hashes[slot], a.phrases[slot]);
+            long count = a.counts[slot] + (other >= 0 ? b.counts[other] : minB);
+            long error = a.errors[slot] + (other >= 0 ? b.errors[other] : minB);
+            int[] row = a.row(slot);
+            if (other >= 0) {
+                int[] otherRow = b.row(other);
+                for (int c = 0; c < MAX_CATEGORIES; c++) row[c] += otherRow[c];
+            }
+            candidates.add(new long[]{count, error, a.hashes[slot]});
+            names.add(a.phrases[slot]);
+            rows.add(row);
+        }
+        for (int slot = 0; slot < b.size; slot++) {
+            if (a.find(b.hashes[slot], b.phrases[slot]) >= 0) continue;
+            candidates.add(new long[]{b.counts[slot] + minA, b.errors[slot] + minA, b.hashes[slot]});
+            names.add(b.phrases[slot]);
+            rows.add(b.row(slot));
+        }
+
+        Integer[] order = new Integer[candidates.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> {
+            int byCount = Long.compare(candidates.get(y)[0], candidates.get(x)[0]);
+            return byCount != 0 ? byCount : names.get(x).compareTo(names.get(y));
+        });
+
+        HeavyHitters merged = new HeavyHitters(capacity);
+        for (int i = 0; i < Math.min(capacity, order.length); i++) {
+            long[] candidate = candidates.get(order[i]);
+            int slot = merged.claim(candidate[2], names.get(order[i]));
+            merged.counts[slot] = candidate[0];
+            merged.errors[slot] = candidate[1];
+            System.arraycopy(rows.get(order[i]), 0, merged.categories, slot * MAX_CATEGORIES, MAX_CATEGORIES);
+            merged.siftDown(merged.heapIndex[slot]);
+        }
+        return merged;
+    }
+
+    /**
+     * The n largest counts, ties by phrase.
+     */
+    List<Entry> top(int n) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> {
+            int byCount = Long.compare(counts[y], counts[x]);
+            return byCount != 0 ? byCount : phrases[x].compareTo(phrases[y]);
+        });
+
+        List<Entry> top = new ArrayList<>(Math.min(n, size));
+        for (int i = 0; i < Math.min(n, size); i++) {
+            int slot = order[i];
+            // Category 0 stands for "unknown" and only wins when nothing else was seen
+            int best = 0;
+            for (int c = 1; c < MAX_CATEGORIES; c++) {
+                if (categories[slot * MAX_CATEGORIES + c] > (best == 0 ? 0 : categories[slot * MAX_CATEGORIES + best])) best = c;
+            }
+            top.add(new Entry(phrases[slot], counts[slot], errors[slot], best, categories[slot * MAX_CATEGORIES + best]));
+        }
+        return top;
+    }
+
+    // ======================== INTERNALS ========================
+
+    /**
+     * Slot for a new phrase: a free one with count 0 while not full, else the one with the
+     * smallest count, which the new phrase starts from and keeps as its error.
+     */
+    private int claim(long hash, String phrase) {
+        int slot;
+        long count = 0;
+        if (size < capacity) {
+            slot = size++;
+            heap[slot] = slot;
+            heapIndex[slot] = slot;
+            errors[slot] = 0;
+        } else {
+            slot = heap[0];
+            unindex(slot);
+            errors[slot] = counts[slot];
+            count = counts[slot];
+        }
+        hashes[slot] = hash;
+        phrases[slot] = phrase;
+        counts[slot] = count;
+        Arrays.fill(categories, slot * MAX_CATEGORIES, (slot + 1) * MAX_CATEGORIES, 0);
+        index(slot);
+        siftUp(heapIndex[slot]);
+        return slot;
+    }
+
+    private int[] row(int slot) {
+        return Arrays.copyOfRange(categories, slot * MAX_CATEGORIES, (slot + 1) * MAX_CATEGORIES);
+    }
+
+    private int find(long hash, CharSequence phrase) {
+        for (int b = bucket(hash); table[b] != 0; b = (b + 1) & mask) {
+            int slot = table[b] - 1;
+            if (hashes[slot] == hash && phrases[slot].contentEquals(phrase)) return slot;
+        }
+        return -1;
+    }
+
+    private void index(int slot) {
+        int b = bucket(hashes[slot]);
+        while (table[b] != 0) b = (b + 1) & mask;
+        table[b] = slot + 1;
+    }
+
+    /**
+     * Remove the slot from the index, shifting later entries of its probe run back.
+     */
+    private void unindex(int slot) {
+        int b = bucket(hashes[slot]);
+        while (table[b] != slot + 1) b = (b + 1) & mask;
+        table[b] = 0;
+        for (int next = (b + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = bucket(hashes[table[next] - 1]);
+            // Move back unless its home lies cyclically in (b, next]
+            if (b <= next ? (home <= b || home > next) : (home <= b && home > next)) {
+                table[b] = table[next];
+                table[next] = 0;
+                b = next;
+            }
+        }
+    }
+
+    private int bucket(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // FNV-1a over the chars, then a final mix so both halves depend on every char
+    private static long hash(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) break;
+            place(i, heap[parent]);
+            i = parent;
+        }
+        place(i, slot);
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) child++;
+            if (counts[heap[child]] >= counts[slot]) break;
+            place(i, heap[child]);
+            i = child;
+        }
+        place(i, slot);
+    }
+
+    private void place(int i, int slot) {
+        heap[i] = slot;
+        heapIndex[slot] = i;
+    }
+}
@@ -0,0 +1,158 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.PlayerLongTable;
+import com.holyworld.autoreply.ai.PlayerRegistry;
+import com.holyworld.autoreply.ai.PlayerTable;
+import com.holyworld.autoreply.ai.ResponseEngine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Footprint and lookup cost of per-player bookkeeping: the old pair of
+ * ConcurrentHashMap&lt;String, ...&gt; (state, cooldown) plus the flood ring map, against
+ * one PlayerRegistry lookup followed by PlayerTable / PlayerLongTable reads.
+ *
+ * Each simulated message carries a freshly parsed name (a new String, hash not yet cached),
+ * the same as a chat line in game. Usage:
+ *   hwar bench-players [--players 10000] [--rounds 50]
+ */
+public class PlayerTableBench {
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    // Stand-in for FloodFilter's per-player ring
+    private static final class Ring {
+        final long[] exact = new long[8];
+        final long[] near = new long[8];
+        final long[] time = new long[8];
+    }
+
+    public static int run(String[] args) {
+        int players = 10_000;
+        int rounds = 50;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--players": players = Integer.parseInt(args[i + 1]); break;
+                case "--rounds": rounds = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("Usage: hwar bench-players [--players N] [--rounds N]");
+                    return 2;
+            }
+        }
+
+        String[] names = new String[players];
+        for (int i = 0; i < players; i++) {
+            names[i] = "Player" + i;
+        }
+
+        System.out.printf("%d players, %d rounds of one message each%n%n", players, rounds);
+        System.out.printf("%-26s %12s %14s%n", "", "retained KB", "ns/message");
+
+        // ---- String-keyed maps ----
+        long before = usedHeap();
+        ConcurrentHashMap<String, ResponseEngine.PlayerState> states = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, Long> cooldowns = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+        for (String name : names) {
+            states.put(name, new ResponseEngine.PlayerState());
+            cooldowns.put(name, System.currentTimeMillis());
+            rings.put(name, new Ring());
+        }
+        long mapBytes = usedHeap() - before;
+
+        long sink = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            sink += mapRound(fresh(names), states, cooldowns, rings);
+        }
+        long elapsed = 0;
+        for (int r = 0; r < rounds; r++) {
+            String[] lookup = fresh(names);
+            long t0 = System.nanoTime();
+            sink += mapRound(lookup, states, cooldowns, rings);
+            elapsed += System.nanoTime() - t0;
+        }
+        System.out.printf("%-26s %12d %14.1f%n", "ConcurrentHashMap<String>",
+            mapBytes / 1024, (double) elapsed / ((long) rounds * players));
+
+        states = null;
+        cooldowns = null;
+        rings = null;
+
+        // ---- Interned ids ----
+        before = usedHeap();
+        PlayerRegistry registry = new PlayerRegistry();
+        PlayerTable<ResponseEngine.PlayerState> stateTable = new PlayerTable<>(ResponseEngine.PlayerState::new);
+        PlayerLongTable cooldownTable = new PlayerLongTable();
+        PlayerTable<Ring> ringTable = new PlayerTable<>(Ring::new);
+        for (String name : names) {
+            int id = registry.idOf(name);
+            stateTable.getOrCreate(id);
+            cooldownTable.set(id, System.currentTimeMillis());
+            ringTable.getOrCreate(id);
+        }
+        long tableBytes = usedHeap() - before;
+
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            sink += tableRound(fresh(names), registry, stateTable, cooldownTable, ringTable);
+        }
+        elapsed = 0;
+        for (int r = 0; r < rounds; r++) {
+            String[] lookup = fresh(names);
+            long t0 = System.nanoTime();
+            sink += tableRound(lookup, registry, stateTable, cooldownTable, ringTable);
+            elapsed += System.nanoTime() - t0;
+        }
+        System.out.printf("%-26s %12d %14.1f%n", "PlayerRegistry + tables",
+            tableBytes / 1024, (double) elapsed / ((long) rounds * players));
+
+        // Keeps the JIT from dropping the lookups
+        if (sink == 42) System.out.println();
+        return 0;
+    }
+
+    private static long mapRound(String[] lookup, ConcurrentHashMap<String, ResponseEngine.PlayerState> states,
+                                 ConcurrentHashMap<String, Long> cooldowns, ConcurrentHashMap<String, Ring> rings) {
+        long sink = 0;
+        for (String name : lookup) {
+            sink += states.get(name).messageCount;
+            sink += cooldowns.get(name);
+            sink += rings.get(name).time[0];
+        }
+        return sink;
+    }
+
+    private static long tableRound(String[] lookup, PlayerRegistry registry,
+                                   PlayerTable<ResponseEngine.PlayerState> states,
+                                   PlayerLongTable cooldowns, PlayerTable<Ring> rings) {
+        long sink = 0;
+        for (String name : lookup) {
+            int id = registry.find(name);
+            sink += states.get(id).messageCount;
+            sink += cooldowns.get(id);
+            sink += rings.get(id).time[0];
+        }
+        return sink;
+    }
+
+    /**
+     * Copies of the names in scrambled order, with no cached hash code.
+     */
+    private static String[] fresh(String[] names) {
+        String[] copies = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            int j = (int) ((i * 0x9E3779B1L) % names.length);
+            copies[i] = new String(names[j].toCharArray());
+        }
+        return copies;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
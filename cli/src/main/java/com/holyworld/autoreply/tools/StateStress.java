@@ -0,0 +1,436 @@
+package com.holyworld.autoreply.tools;
+
+import com.holyworld.autoreply.ai.CheckPhase;
+import com.holyworld.autoreply.ai.PlayerLongTable;
+import com.holyworld.autoreply.ai.ResponseEngine;
+import com.holyworld.autoreply.ai.RuleDecisionCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * jcstress-style stress harness for per-player state and the reply cooldown.
+ *
+ * Each scenario runs two actor threads against shared state many times; an arbiter then
+ * reads the result and every distinct outcome is counted and graded:
+ *   ACCEPTABLE              allowed by the state model
+ *   ACCEPTABLE_INTERESTING  allowed, but worth knowing about (the old racy cooldown)
+ *   FORBIDDEN               a corrupted check; exit code 1
+ *
+ * Actors start together from a latch, so on a single core interleavings come from preemption
+ * and are rarer; raise --trials there. Usage:
+ *   hwar stress [--trials 1000] [scenario...]
+ */
+public class StateStress {
+
+    private static final String ACCEPTABLE = "ACCEPTABLE";
+    private static final String INTERESTING = "ACCEPTABLE_INTERESTING";
+    private static final String FORBIDDEN = "FORBIDDEN";
+
+    private static final String CODE = "123 456 789";
+    private static final long COOLDOWN_MS = 2500;
+
+    private abstract static class Scenario {
+        final String name;
+        final String description;
+
+        Scenario(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        abstract void reset();
+
+        abstract void actor1();
+
+        abstract void actor2();
+
+        abstract String arbiter();
+
+        /**
+         * Grade and explanation of an outcome.
+         */
+        abstract String[] grade(String outcome);
+    }
+
+    public static int run(String[] args) throws InterruptedException {
+        int trials = 1000;
+        List<String> only = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--trials") && i + 1 < args.length) {
+                trials = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println("Usage: hwar stress [--trials N] [scenario...]");
+                return 2;
+            } else {
+                only.add(args[i]);
+            }
+        }
+
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        Scenario[] scenarios = {
+            new MessageCount(engine),
+            new Cooldown(false),
+            new Cooldown(true),
+            new ConfessionOnce(engine),
+            new ClearVsMessage(engine),
+            new StartVsMessage(engine),
+            new ParallelPlayers(engine)
+        };
+
+        boolean failed = false;
+        for (Scenario scenario : scenarios) {
+            if (!only.isEmpty() && !only.contains(scenario.name)) continue;
+            Map<String, Integer> outcomes = runScenario(scenario, trials);
+
+            boolean forbidden = false;
+            for (String outcome : outcomes.keySet()) {
+                forbidden |= scenario.grade(outcome)[0].equals(FORBIDDEN);
+            }
+            failed |= forbidden;
+
+            System.out.printf("[%s] %s, %d trials: %s%n", forbidden ? "FAILED" : "OK", scenario.name, trials, scenario.description);
+            for (Map.Entry<String, Integer> e : outcomes.entrySet()) {
+                String[] grade = scenario.grade(e.getKey());
+                System.out.printf("    %-24s %8d  %-22s %s%n", e.getKey(), e.getValue(), grade[0], grade[1]);
+            }
+        }
+        return failed ? 1 : 0;
+    }
+
+    private static Map<String, Integer> runScenario(Scenario scenario, int trials) throws InterruptedException {
+        Map<String, Integer> outcomes = new TreeMap<>();
+        for (int t = 0; t < trials; t++) {
+            scenario.reset();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread a = new Thread(() -> {
+                awaitQuietly(start);
+                scenario.actor1();
+            }, "HW-Stress-1");
+            Thread b = new Thread(() -> {
+                awaitQuietly(start);
+                scenario.actor2();
+            }, "HW-Stress-2");
+            a.start();
+            b.start();
+            start.countDown();
+            a.join();
+            b.join();
+            outcomes.merge(scenario.arbiter(), 1, Integer::sum);
+        }
+        return outcomes;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======================== SCENARIOS ========================
+
+    /**
+     * Two threads answer the same player; every message must be counted.
+     */
+    private static final class MessageCount extends Scenario {
+        private static final int MESSAGES = 2000;
+        private final ResponseEngine engine;
+        private final int id;
+
+        MessageCount(ResponseEngine engine) {
+            super("message-count", "same player from two threads, " + MESSAGES + " messages each");
+            this.engine = engine;
+            this.id = engine.getPlayers().idOf("StressCount");
+        }
+
+        void reset() {
+            engine.startCheck(id);
+        }
+
+        void actor1() {
+            for (int i = 0; i < MESSAGES; i++) engine.getResponse("ало", id);
+        }
+
+        void actor2() {
+            for (int i = 0; i < MESSAGES; i++) engine.getResponse("жди", id);
+        }
+
+        String arbiter() {
+            return "count=" + engine.getPlayerState(id).messageCount;
+        }
+
+        String[] grade(String outcome) {
+            return outcome.equals("count=" + 2 * MESSAGES)
+                ? new String[]{ACCEPTABLE, "every message counted"}
+                : new String[]{FORBIDDEN, "lost messageCount updates"};
+        }
+    }
+
+    /**
+     * Two threads claim the reply cooldown for the same players at the same instant;
+     * exactly one may win each. The legacy variant is the old get-then-set in ChatHandler.
+     */
+    private static final class Cooldown extends Scenario {
+        private static final int PLAYERS = 2000;
+        private static final long NOW = 1_000_000L;
+        private final boolean legacy;
+        private PlayerLongTable table;
+        private final boolean[] won1 = new boolean[PLAYERS];
+        private final boolean[] won2 = new boolean[PLAYERS];
+
+        Cooldown(boolean legacy) {
+            super(legacy ? "cooldown-legacy" : "cooldown",
+                legacy ? "old get-then-set cooldown, for comparison" : "advanceIfElapsed from two threads, " + PLAYERS + " players");
+            this.legacy = legacy;
+        }
+
+        void reset() {
+            table = new PlayerLongTable();
+            Arrays.fill(won1, false);
+            Arrays.fill(won2, false);
+        }
+
+        void actor1() {
+            claimAll(won1);
+        }
+
+        void actor2() {
+            claimAll(won2);
+        }
+
+        private void claimAll(boolean[] won) {
+            for (int id = 0; id < PLAYERS; id++) {
+                if (legacy) {
+                    long last = table.get(id);
+                    if (last != PlayerLongTable.EMPTY && NOW - last < COOLDOWN_MS) continue;
+                    table.set(id, NOW);
+                    won[id] = true;
+                } else {
+                    won[id] = table.advanceIfElapsed(id, NOW, COOLDOWN_MS);
+                }
+            }
+        }
+
+        String arbiter() {
+            int doubles = 0;
+            int none = 0;
+            for (int id = 0; id < PLAYERS; id++) {
+                if (won1[id] && won2[id]) doubles++;
+                if (!won1[id] && !won2[id]) none++;
+            }
+            if (none > 0) return "unclaimed=" + none;
+            return doubles == 0 ? "one winner each" : "double replies";
+        }
+
+        String[] grade(String outcome) {
+            if (outcome.equals("one winner each")) return new String[]{ACCEPTABLE, "one reply per window"};
+            if (outcome.equals("double replies")) {
+                return new String[]{legacy ? INTERESTING : FORBIDDEN, "both threads replied inside one cooldown"};
+            }
+            return new String[]{FORBIDDEN, "nobody replied"};
+        }
+    }
+
+    /**
+     * Rule flags are check-then-act: the confession offer must go out once per check,
+     * however the two threads interleave.
+     */
+    private static final class ConfessionOnce extends Scenario {
+        private static final String FILLER = "пупупу";
+        private static final String OFFER = "Признание уменьшает наказание на 35%";
+        private final ResponseEngine engine;
+        private final int id;
+        private int offers1;
+        private int offers2;
+
+        ConfessionOnce(ResponseEngine engine) {
+            super("confession-once", "catchall messages from two threads past the offer threshold");
+            this.engine = engine;
+            this.id = engine.getPlayers().idOf("StressConfession");
+        }
+
+        void reset() {
+            engine.startCheck(id);
+            for (int i = 0; i < 8; i++) engine.getResponse(FILLER, id);
+            offers1 = 0;
+            offers2 = 0;
+        }
+
+        void actor1() {
+            for (int i = 0; i < 4; i++) {
+                if (OFFER.equals(engine.getResponse(FILLER, id))) offers1++;
+            }
+        }
+
+        void actor2() {
+            for (int i = 0; i < 4; i++) {
+                if (OFFER.equals(engine.getResponse(FILLER, id))) offers2++;
+            }
+        }
+
+        String arbiter() {
+            return "offers=" + (offers1 + offers2);
+        }
+
+        String[] grade(String outcome) {
+            return outcome.equals("offers=1")
+                ? new String[]{ACCEPTABLE, "offered once"}
+                : new String[]{FORBIDDEN, "offer sent " + outcome.substring(7) + " times"};
+        }
+    }
+
+    /**
+     * A code arrives while /ai clear runs. The message either lands before the clear
+     * (state gone) or after it (fresh state holding the codes), never half of each.
+     */
+    private static final class ClearVsMessage extends Scenario {
+        private final ResponseEngine engine;
+        private final int id;
+
+        ClearVsMessage(ResponseEngine engine) {
+            super("clear-vs-message", "code message racing clearAllStates");
+            this.engine = engine;
+            this.id = engine.getPlayers().idOf("StressClear");
+        }
+
+        void reset() {
+            engine.startCheck(id);
+            engine.getResponse("прив", id);
+        }
+
+        void actor1() {
+            engine.getResponse(CODE, id);
+        }
+
+        void actor2() {
+            engine.clearAllStates();
+        }
+
+        String arbiter() {
+            return describe(engine.getPlayerState(id));
+        }
+
+        String[] grade(String outcome) {
+            switch (outcome) {
+                case "absent": return new String[]{ACCEPTABLE, "message before clear"};
+                case "count=1 codes": return new String[]{ACCEPTABLE, "message after clear"};
+                default: return new String[]{FORBIDDEN, "torn state"};
+            }
+        }
+    }
+
+    /**
+     * A code arrives while a new check for the same player starts.
+     */
+    private static final class StartVsMessage extends Scenario {
+        private final ResponseEngine engine;
+        private final int id;
+
+        StartVsMessage(ResponseEngine engine) {
+            super("start-vs-message", "code message racing startCheck");
+            this.engine = engine;
+            this.id = engine.getPlayers().idOf("StressStart");
+        }
+
+        void reset() {
+            engine.startCheck(id);
+            engine.getResponse("прив", id);
+        }
+
+        void actor1() {
+            engine.getResponse(CODE, id);
+        }
+
+        void actor2() {
+            engine.startCheck(id);
+        }
+
+        String arbiter() {
+            return describe(engine.getPlayerState(id));
+        }
+
+        String[] grade(String outcome) {
+            switch (outcome) {
+                case "count=0": return new String[]{ACCEPTABLE, "codes went to the old check"};
+                case "count=1 codes": return new String[]{ACCEPTABLE, "codes went to the new check"};
+                default: return new String[]{FORBIDDEN, "torn state"};
+            }
+        }
+    }
+
+    /**
+     * Disjoint players evaluated in parallel through one engine and decision cache.
+     */
+    private static final class ParallelPlayers extends Scenario {
+        private static final int PLAYERS = 50;
+        private static final int MESSAGES = 10;
+        private static final String[] LINES = {"ало", "+", "что дальше", "жди", CODE, "скачиваю", "за что"};
+        private final ResponseEngine engine;
+        private final int[] ids = new int[2 * PLAYERS];
+        private long lookupsBefore;
+
+        ParallelPlayers(ResponseEngine engine) {
+            super("parallel-players", PLAYERS + " players per thread, " + MESSAGES + " messages each");
+            this.engine = engine;
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = engine.getPlayers().idOf("StressParallel" + i);
+            }
+        }
+
+        void reset() {
+            for (int id : ids) engine.startCheck(id);
+            lookupsBefore = lookups();
+        }
+
+        void actor1() {
+            play(0);
+        }
+
+        void actor2() {
+            play(PLAYERS);
+        }
+
+        private void play(int from) {
+            for (int m = 0; m < MESSAGES; m++) {
+                for (int p = from; p < from + PLAYERS; p++) {
+                    engine.getResponse(LINES[(m + p) % LINES.length], ids[p]);
+                }
+            }
+        }
+
+        String arbiter() {
+            for (int id : ids) {
+                if (engine.getPlayerState(id).messageCount != MESSAGES) return "lost messages";
+            }
+            long lookups = lookups() - lookupsBefore;
+            return lookups == 2L * PLAYERS * MESSAGES ? "consistent" : "cache miscounted";
+        }
+
+        private long lookups() {
+            long total = 0;
+            for (CheckPhase phase : CheckPhase.values()) {
+                RuleDecisionCache cache = engine.getDecisionCache(phase);
+                total += cache.getHits() + cache.getMisses();
+            }
+            return total;
+        }
+
+        String[] grade(String outcome) {
+            return outcome.equals("consistent")
+                ? new String[]{ACCEPTABLE, "every player and cache lookup accounted for"}
+                : new String[]{FORBIDDEN, "cross-player interference"};
+        }
+    }
+
+    private static String describe(ResponseEngine.PlayerState state) {
+        if (state == null) return "absent";
+        return "count=" + state.messageCount + (state.gaveCodes ? " codes" : "");
+    }
+}
@@ -0,0 +1,232 @@
+package com.holyworld.autoreply.ai;
+
+/**
+ * One player line from a HolyWorld check, parsed out of a raw chat line.
+ *
+ * Log format from HolyWorld:
+ * [20:13:50] [Render thread/INFO]: [System] [CHAT] \u00a7d\u00a7l[CHECK] \u00a7fAAAlpine14288 \u00a75-> za chto
+ *
+ * In-game the Text.getString() strips some formatting, so we need multiple patterns.
+ * They used to be regexes; the partial one backtracked cubically on long lines of dashes and
+ * color codes, so each is now a hand-written scan that picks the same groups in linear time.
+ * The patterns are still documented next to their scans.
+ */
+public final class CheckMessage {
+
+    public static final String MARKER = "[CHECK]";
+
+    // Longest [CHECK] line worth parsing in hardened mode. Player chat is capped at 256 characters,
+    // the rest is prefix and color codes.
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    private static final String COLORED_PREFIX = "\u00a7d\u00a7l";
+    private static final String COLORED_PLAYER = "\u00a7f";
+    private static final String COLORED_ARROW = "\u00a75->";
+    private static final String ARROW = "->";
+
+    public final String player;
+    public final String message;
+    // Which pattern matched: colored, clean, partial or manual
+    public final String pattern;
+
+    private CheckMessage(String player, String message, String pattern) {
+        this.player = player;
+        this.message = message;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Parse any chat or log line; null when it is not a usable [CHECK] line.
+     */
+    public static CheckMessage parse(String line) {
+        int marker = line.indexOf(MARKER);
+        return marker < 0 ? null : parse(line, marker + MARKER.length());
+    }
+
+    /**
+     * Parse a line already known to contain [CHECK] ending at markerEnd.
+     * Returns null when no player or message could be extracted.
+     */
+    public static CheckMessage parse(String rawMessage, int markerEnd) {
+        CheckMessage raw = colored(rawMessage, markerEnd);
+        if (raw == null) raw = clean(rawMessage, markerEnd);
+        if (raw == null) raw = partial(rawMessage, markerEnd);
+
+        // Fallback: manual parsing
+        if (raw == null) {
+            String afterCheck = rawMessage.substring(markerEnd);
+            // Remove all section sign color codes
+            afterCheck = stripColorCodes(afterCheck).trim();
+
+            int arrowIdx = afterCheck.indexOf(ARROW);
+            if (arrowIdx > 0) {
+                raw = new CheckMessage(afterCheck.substring(0, arrowIdx).trim(), afterCheck.substring(arrowIdx + 2).trim(), "manual");
+            }
+        }
+
+        if (raw == null) return null;
+
+        // Clean up
+        String playerName = stripColorCodes(raw.player).trim();
+        String playerMessage = stripColorCodes(raw.message).trim();
+
+        if (playerName.isEmpty() || playerMessage.isEmpty()) return null;
+        return new CheckMessage(playerName, playerMessage, raw.pattern);
+    }
+
+    // ======================== PATTERNS ========================
+
+    /**
+     * Pattern 1, with color codes in getString():
+     * {@code \u00a7d\u00a7l\[CHECK\]\s*\u00a7f(\S+)\s*\u00a75->\s*(.*)}
+     */
+    private static CheckMessage colored(String s, int markerEnd) {
+        int markerStart = markerEnd - MARKER.length();
+        if (markerStart < COLORED_PREFIX.length()
+            || !s.startsWith(COLORED_PREFIX, markerStart - COLORED_PREFIX.length())) return null;
+
+        int p = skipSpace(s, markerEnd);
+        if (!s.startsWith(COLORED_PLAYER, p)) return null;
+        p += COLORED_PLAYER.length();
+        int runEnd = spaceRunEnd(s, p);
+        if (runEnd == p) return null;
+
+        // (\S+) is greedy: the arrow after the whole run, else the last arrow inside it
+        int arrow = skipSpace(s, runEnd);
+        int q = runEnd;
+        if (!s.startsWith(COLORED_ARROW, arrow)) {
+            q = s.lastIndexOf(COLORED_ARROW, runEnd - COLORED_ARROW.length());
+            if (q <= p) return null;
+            arrow = q;
+        }
+        return groups(s, p, q, arrow + COLORED_ARROW.length(), "colored");
+    }
+
+    /**
+     * Pattern 2, stripped color codes: {@code \[CHECK\]\s+(\S+)\s+->\s+(.*)}
+     */
+    private static CheckMessage clean(String s, int markerEnd) {
+        int n = s.length();
+        if (markerEnd >= n || !isSpace(s.charAt(markerEnd))) return null;
+        int p = skipSpace(s, markerEnd);
+        int q = spaceRunEnd(s, p);
+        if (q == p || q == n) return null;
+        int arrow = skipSpace(s, q);
+        if (!s.startsWith(ARROW, arrow)) return null;
+        int after = arrow + ARROW.length();
+        if (after >= n || !isSpace(s.charAt(after))) return null;
+        return groups(s, p, q, after, "clean");
+    }
+
+    /**
+     * Pattern 3, partial color codes: {@code \[CHECK\]\s*[^\w]*(\S+)\s*[^\w]*->\s*(.*)}
+     *
+     * Backtracking settles on the rightmost player start p inside the leading non-word run, then
+     * the longest non-space run from p whose end is followed, within one non-word run, by an
+     * arrow; of those arrows the last one. Two right-to-left passes precompute both lookups.
+     */
+    private static CheckMessage partial(String s, int markerEnd) {
+        int n = s.length();
+        int len = n - markerEnd;
+        // arrowAt[k]: last arrow in the non-word run starting at markerEnd + k, or -1
+        int[] arrowAt = new int[len + 1];
+        // playerEnd[k]: furthest q in [markerEnd + k, end of its non-space run] with arrowAt >= 0, or -1
+        int[] playerEnd = new int[len + 1];
+        arrowAt[len] = -1;
+        playerEnd[len] = -1;
+        for (int k = len - 1; k >= 0; k--) {
+            int i = markerEnd + k;
+            char c = s.charAt(i);
+            if (isWord(c)) {
+                arrowAt[k] = -1;
+            } else if (arrowAt[k + 1] >= 0) {
+                arrowAt[k] = arrowAt[k + 1];
+            } else {
+                arrowAt[k] = s.startsWith(ARROW, i) ? i : -1;
+            }
+            if (isSpace(c)) {
+                playerEnd[k] = arrowAt[k] >= 0 ? i : -1;
+            } else {
+                playerEnd[k] = playerEnd[k + 1] >= 0 ? playerEnd[k + 1] : (arrowAt[k] >= 0 ? i : -1);
+            }
+        }
+
+        int p = markerEnd;
+        while (p < n && !isWord(s.charAt(p))) p++;
+        for (; p >= markerEnd; p--) {
+            if (p == n || isSpace(s.charAt(p))) continue;
+            int q = playerEnd[p + 1 - markerEnd];
+            if (q >= 0) {
+                return groups(s, p, q, arrowAt[q - markerEnd] + ARROW.length(), "partial");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Player is [playerStart, playerEnd); the message follows the arrow ending at arrowEnd,
+     * minus leading whitespace, up to the end of the line as {@code (.*)} would stop.
+     */
+    private static CheckMessage groups(String s, int playerStart, int playerEnd, int arrowEnd, String pattern) {
+        int messageStart = skipSpace(s, arrowEnd);
+        int messageEnd = messageStart;
+        while (messageEnd < s.length() && !isLineTerminator(s.charAt(messageEnd))) messageEnd++;
+        return new CheckMessage(s.substring(playerStart, playerEnd), s.substring(messageStart, messageEnd), pattern);
+    }
+
+    // Character classes as java.util.regex defines them without UNICODE_CHARACTER_CLASS
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int skipSpace(String s, int i) {
+        while (i < s.length() && isSpace(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static int spaceRunEnd(String s, int i) {
+        while (i < s.length() && !isSpace(s.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * Remove Minecraft color codes (section sign + character)
+     */
+    public static String stripColorCodes(String input) {
+        if (input == null) return "";
+        // Handle both real section signs and escaped ones
+        return stripCodes(stripCodes(input, '\u00a7'), '&');
+    }
+
+    private static String stripCodes(String input, char prefix) {
+        int i = input.indexOf(prefix);
+        if (i < 0) return input;
+        int n = input.length();
+        StringBuilder out = new StringBuilder(n);
+        out.append(input, 0, i);
+        for (; i < n; i++) {
+            char c = input.charAt(i);
+            if (c == prefix && i + 1 < n && isFormatCode(input.charAt(i + 1))) {
+                i++;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    // [0-9a-fk-orA-FK-OR]
+    private static boolean isFormatCode(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'k' && c <= 'o') || c == 'r'
+            || (c >= 'A' && c <= 'F') || (c >= 'K' && c <= 'O') || c == 'R';
+    }
+}
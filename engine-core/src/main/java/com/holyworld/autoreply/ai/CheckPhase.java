@@ -0,0 +1,66 @@
+package com.holyworld.autoreply.ai;
+
+/**
+ * Where a check stands, advanced by the category of each answered message.
+ *
+ * GREETING -> DOWNLOADING -> CODE_GIVEN -> CONNECTED -> DONE, never backwards. Phases can be
+ * skipped: a code in the first message goes straight to CODE_GIVEN. Each phase scans its own
+ * subset of the rules (see ResponseEngine.RULE_PHASES).
+ */
+public enum CheckPhase {
+    GREETING,
+    DOWNLOADING,
+    CODE_GIVEN,
+    CONNECTED,
+    DONE;
+
+    public static final int COUNT = values().length;
+
+    private static final CheckPhase[] VALUES = values();
+
+    // The greeting rule stops matching after this many messages anyway
+    private static final int GREETING_MESSAGES = 3;
+
+    public static CheckPhase of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Phase after a message of the given category was answered.
+     */
+    CheckPhase after(ResponseEngine.PlayerState state, String category) {
+        if (this == DONE) return DONE;
+        if (category.equals("done")) return this.ordinal() >= CODE_GIVEN.ordinal() ? DONE : this;
+
+        switch (this) {
+            case GREETING:
+                if (state.gaveCodes) return CODE_GIVEN;
+                if (state.messageCount > GREETING_MESSAGES || isDownloadTalk(category)) return DOWNLOADING;
+                return GREETING;
+            case DOWNLOADING:
+                return state.gaveCodes ? CODE_GIVEN : DOWNLOADING;
+            case CODE_GIVEN:
+                // Talking about the accept button or the plugin means the session is up
+                return category.equals("accept") || category.equals("plugin") ? CONNECTED : CODE_GIVEN;
+            default:
+                return this;
+        }
+    }
+
+    private static boolean isDownloadTalk(String category) {
+        switch (category) {
+            case "downloading":
+            case "cant_download":
+            case "no_anydesk":
+            case "what_anydesk":
+            case "where_download":
+            case "rudesk":
+            case "rustdesk":
+            case "phone":
+            case "trying":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.holyworld.autoreply.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background JIT warm-up of the parse/match path.
+ *
+ * Replays a bundled synthetic check conversation through {@link CheckMessage} and a throwaway
+ * ResponseEngine until a replay stops getting faster, so the first real [CHECK] runs compiled
+ * code instead of the interpreter. Replay time rather than total JIT time decides, because the
+ * game keeps the compiler busy with its own code for a long while after start.
+ *
+ * The throwaway engine has its own players, states, cache and bandit, so variant selection is
+ * warmed too without touching the real statistics. Nothing is logged per message and nothing
+ * is sent.
+ *
+ * Disable with -Dholyworld.autoreply.warmup=false.
+ */
+public final class EngineWarmup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("holyworld-autoreply");
+
+    public static final String PROPERTY = "holyworld.autoreply.warmup";
+    private static final String CORPUS = "/holyworld-autoreply/warmup.txt";
+
+    // Replays are timed in samples of ROUNDS_PER_SAMPLE; warm once STABLE_SAMPLES samples
+    // in a row failed to beat the best one by more than 5%
+    private static final int ROUNDS_PER_SAMPLE = 20;
+    private static final int STABLE_SAMPLES = 3;
+    private static final int MIN_ROUNDS = 100;
+    private static final int MAX_ROUNDS = 3000;
+    private static final long MAX_MILLIS = 15_000;
+
+    public enum Status {
+        NOT_STARTED,
+        RUNNING,
+        DONE,
+        DISABLED
+    }
+
+    private static volatile Status status = Status.NOT_STARTED;
+
+    private EngineWarmup() {
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(PROPERTY));
+    }
+
+    public static Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Start the warm-up on a daemon thread at minimum priority. Returns null when disabled.
+     */
+    public static Thread startInBackground() {
+        if (!isEnabled()) {
+            status = Status.DISABLED;
+            LOGGER.info("[AutoReply] JIT warm-up disabled by -D{}=false", PROPERTY);
+            return null;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                LOGGER.warn("[AutoReply] JIT warm-up failed", e);
+                status = Status.DONE;
+            }
+        }, "HW-AutoReply-Warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        status = Status.RUNNING;
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Run the warm-up on the calling thread. Returns the number of corpus replays.
+     */
+    public static int run() throws IOException {
+        status = Status.RUNNING;
+        long start = System.nanoTime();
+        List<String> corpus = loadCorpus();
+        if (corpus.isEmpty()) {
+            LOGGER.warn("[AutoReply] JIT warm-up corpus {} missing, skipped", CORPUS);
+            status = Status.DONE;
+            return 0;
+        }
+
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        engine.setBandit(new ResponseBandit());
+        // Client start is the busiest moment; an over-budget catchall would warm the wrong branch and log
+        engine.setEvaluationBudgetNanos(0);
+        // Load the clock the live engine's budget reads, so the first real [CHECK] does not
+        ResponseEngine.threadCpuNanos();
+
+        int rounds = 0;
+        int stableSamples = 0;
+        long bestSampleNanos = Long.MAX_VALUE;
+        long sampleStart = System.nanoTime();
+        long deadline = start + MAX_MILLIS * 1_000_000L;
+
+        while (rounds < MAX_ROUNDS && System.nanoTime() < deadline) {
+            for (String line : corpus) {
+                CheckMessage parsed = CheckMessage.parse(line);
+                if (parsed == null) continue;
+                engine.getResponse(parsed.message, parsed.player);
+            }
+            // Fresh conversations each round, so first-message rules stay on the hot path too
+            engine.clearAllStates();
+            rounds++;
+
+            if (rounds % ROUNDS_PER_SAMPLE != 0) continue;
+            long now = System.nanoTime();
+            long sampleNanos = now - sampleStart;
+            sampleStart = now;
+            if (sampleNanos < bestSampleNanos * 0.95) {
+                bestSampleNanos = sampleNanos;
+                stableSamples = 0;
+            } else {
+                stableSamples++;
+            }
+            if (rounds >= MIN_ROUNDS && stableSamples >= STABLE_SAMPLES) break;
+        }
+
+        status = Status.DONE;
+        LOGGER.info("[AutoReply] JIT warm-up done: {} rounds of {} lines in {} ms, {} us per round",
+            rounds, corpus.size(), (System.nanoTime() - start) / 1_000_000,
+            bestSampleNanos == Long.MAX_VALUE ? -1 : bestSampleNanos / ROUNDS_PER_SAMPLE / 1000);
+        return rounds;
+    }
+
+    private static List<String> loadCorpus() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = EngineWarmup.class.getResourceAsStream(CORPUS)) {
+            if (in == null) return lines;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
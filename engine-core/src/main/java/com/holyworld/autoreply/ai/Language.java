@@ -0,0 +1,71 @@
+package com.holyworld.autoreply.ai;
+
+/**
+ * Message language, detected from a single code-point range scan.
+ *
+ * Russian is served by the built-in rules. Other languages add a {@link LanguagePack}
+ * that is loaded the first time a message in that language shows up.
+ */
+public enum Language {
+    RU("ru"),
+    UK("uk"),
+    EN("en");
+
+    private final String code;
+    private volatile LanguagePack pack;
+
+    Language(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public boolean hasPack() {
+        return this != RU;
+    }
+
+    /**
+     * Pack for this language, loaded on first use.
+     */
+    public LanguagePack getPack() {
+        LanguagePack p = pack;
+        if (p == null) {
+            synchronized (this) {
+                p = pack;
+                if (p == null) {
+                    p = LanguagePack.load(this);
+                    pack = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Letters unique to Ukrainian (і ї є ґ) win outright, any other Cyrillic means Russian,
+     * Latin-only text is English. Text without letters (codes, "+", "??") stays Russian.
+     */
+    public static Language detect(CharSequence text) {
+        boolean cyrillic = false;
+        boolean latin = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '\u0400' && c <= '\u04FF') {
+                switch (c) {
+                    case 'і': case 'І':
+                    case 'ї': case 'Ї':
+                    case 'є': case 'Є':
+                    case 'ґ': case 'Ґ':
+                        return UK;
+                    default:
+                        cyrillic = true;
+                }
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                latin = true;
+            }
+        }
+        return latin && !cyrillic ? EN : RU;
+    }
+}
@@ -0,0 +1,136 @@
+package com.holyworld.autoreply.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Keyword sets and response pools for one non-Russian language.
+ *
+ * Packs live in /holyworld-autoreply/packs/&lt;code&gt;.properties:
+ *   rules=greeting,reason,...
+ *   greeting.priority=80
+ *   greeting.keywords=hello|good morning     (substring match on the lowercased message)
+ *   greeting.exact=hi|hey                     (whole trimmed message)
+ *   greeting.responses=Hi! Waiting for AnyDesk|{min} min left
+ *   catchall.any=true                         (matches every message, for a language-specific fallback)
+ * An empty response list is a ban signal, same as a null response from the built-in rules.
+ */
+public class LanguagePack {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("holyworld-autoreply");
+
+    private static final String PACK_PATH = "/holyworld-autoreply/packs/";
+
+    public static class Entry {
+        public final String category;
+        public final int priority;
+        final String[] keywords;
+        final String[] exact;
+        final boolean any;
+        // Responses with {min} filled in, indexed by remaining minutes
+        final String[][] responsesByMinute;
+
+        Entry(String category, int priority, String[] keywords, String[] exact, String[] responses, boolean any) {
+            this.category = category;
+            this.priority = priority;
+            this.keywords = keywords;
+            this.exact = exact;
+            this.any = any;
+            this.responsesByMinute = new String[ResponseEngine.PlayerState.CHECK_MINUTES + 1][];
+            for (int m = 0; m < responsesByMinute.length; m++) {
+                String[] filled = new String[responses.length];
+                for (int i = 0; i < responses.length; i++) {
+                    filled[i] = responses[i].replace("{min}", String.valueOf(m));
+                }
+                responsesByMinute[m] = filled;
+            }
+        }
+
+        boolean hasResponses() {
+            return responsesByMinute[0].length > 0;
+        }
+
+        String[] responsesFor(int remainingMinutes) {
+            return responsesByMinute[remainingMinutes];
+        }
+
+        boolean matches(MessageText lower) {
+            if (any) return true;
+            for (String e : exact) {
+                if (lower.is(e)) return true;
+            }
+            for (String kw : keywords) {
+                if (lower.contains(kw)) return true;
+            }
+            return false;
+        }
+    }
+
+    private final Language language;
+    private final List<Entry> entries;
+
+    private LanguagePack(Language language, List<Entry> entries) {
+        this.language = language;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    static LanguagePack load(Language language) {
+        // String.concat rather than +: the first indy concatenation spins classes that the CLI's
+        // CDS archive cannot hold, and this runs on the first English line
+        String path = PACK_PATH.concat(language.getCode()).concat(".properties");
+        Properties props = new Properties();
+        try (InputStream in = LanguagePack.class.getResourceAsStream(path)) {
+            if (in == null) {
+                LOGGER.warn("[AutoReply] No language pack at {}", path);
+                return new LanguagePack(language, new ArrayList<>());
+            }
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.error("[AutoReply] Failed to load language pack {}", path, e);
+            return new LanguagePack(language, new ArrayList<>());
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (String category : split(props.getProperty("rules", ""), ",")) {
+            int priority = Integer.parseInt(props.getProperty(category.concat(".priority"), "50").trim());
+            entries.add(new Entry(category, priority,
+                split(props.getProperty(category.concat(".keywords"), ""), "|"),
+                split(props.getProperty(category.concat(".exact"), ""), "|"),
+                split(props.getProperty(category.concat(".responses"), ""), "|"),
+                Boolean.parseBoolean(props.getProperty(category.concat(".any"), "false").trim())));
+        }
+        LOGGER.info("[AutoReply] Loaded {} language pack: {} rules",
+            language.getCode(), entries.size());
+        return new LanguagePack(language, entries);
+    }
+
+    private static String[] split(String value, String separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (start <= value.length()) {
+            int end = value.indexOf(separator, start);
+            if (end < 0) end = value.length();
+            String part = value.substring(start, end).trim();
+            if (!part.isEmpty()) parts.add(part);
+            start = end + separator.length();
+        }
+        return parts.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,138 @@
+package com.holyworld.autoreply.ai;
+
+import java.util.Arrays;
+
+/**
+ * Lowercased, trimmed view of a player message backed by a reusable char buffer.
+ *
+ * ResponseEngine keeps one per thread and refills it for every message, so normalizing
+ * and matching never allocate. Rules must not keep a reference to it past their call,
+ * use {@link #toString()} for a stable copy.
+ */
+public final class MessageText implements CharSequence {
+
+    private char[] chars = new char[128];
+    private int length = 0;
+
+    /**
+     * Replace the contents with {@code text} lowercased and trimmed, same as
+     * {@code text.toLowerCase().trim()} but without the intermediate strings.
+     */
+    public MessageText set(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+
+        int n = end - start;
+        if (n > chars.length) {
+            chars = new char[Math.max(n, chars.length * 2)];
+        }
+        for (int i = 0; i < n; i++) {
+            chars[i] = Character.toLowerCase(text.charAt(start + i));
+        }
+        length = n;
+        return this;
+    }
+
+    // ======================== MATCHING ========================
+
+    public boolean contains(String s) {
+        return indexOf(s) >= 0;
+    }
+
+    public int indexOf(String s) {
+        int n = s.length();
+        if (n == 0) return 0;
+        char first = s.charAt(0);
+        int max = length - n;
+        for (int i = 0; i <= max; i++) {
+            if (chars[i] != first) continue;
+            int j = 1;
+            while (j < n && chars[i + j] == s.charAt(j)) j++;
+            if (j == n) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Whole message equals {@code s}.
+     */
+    public boolean is(String s) {
+        if (s.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public boolean startsWith(String s) {
+        if (s.length() > length) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (chars[i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Non-empty and every character is one of {@code allowed}.
+     */
+    public boolean consistsOf(String allowed) {
+        if (length == 0) return false;
+        for (int i = 0; i < length; i++) {
+            if (allowed.indexOf(chars[i]) < 0) return false;
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Same value as {@code toString().hashCode()}, so it can probe String-keyed tables.
+     */
+    public int hash() {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    // ======================== CHAR SEQUENCE ========================
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) throw new IndexOutOfBoundsException(index);
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MessageText)) return false;
+        MessageText other = (MessageText) o;
+        return length == other.length && Arrays.equals(chars, 0, length, other.chars, 0, length);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash();
+    }
+}
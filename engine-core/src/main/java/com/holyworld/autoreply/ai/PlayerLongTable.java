@@ -0,0 +1,74 @@
+package com.holyworld.autoreply.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Primitive long per player, indexed by {@link PlayerRegistry} id: timestamps such as the
+ * last reply time, without a boxed Long per entry. Same chunked layout as {@link PlayerTable}.
+ * Thread-safe.
+ */
+public class PlayerLongTable {
+
+    public static final long EMPTY = Long.MIN_VALUE;
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(PlayerTable.CHUNKS);
+
+    /**
+     * The player's value, or EMPTY.
+     */
+    public long get(int id) {
+        AtomicLongArray chunk = chunks.get(id >>> PlayerTable.CHUNK_BITS);
+        return chunk == null ? EMPTY : chunk.get(id & PlayerTable.CHUNK_MASK);
+    }
+
+    public void set(int id, long value) {
+        chunk(id).set(id & PlayerTable.CHUNK_MASK, value);
+    }
+
+    public boolean compareAndSet(int id, long expected, long value) {
+        return chunk(id).compareAndSet(id & PlayerTable.CHUNK_MASK, expected, value);
+    }
+
+    /**
+     * Set the value to now when it is EMPTY or at least minGap older. Returns true for the one
+     * caller that did; a racing caller with the same now sees the fresh value and gets false.
+     */
+    public boolean advanceIfElapsed(int id, long now, long minGap) {
+        AtomicLongArray chunk = chunk(id);
+        int slot = id & PlayerTable.CHUNK_MASK;
+        while (true) {
+            long last = chunk.get(slot);
+            if (last != EMPTY && now - last < minGap) return false;
+            if (chunk.compareAndSet(slot, last, now)) return true;
+        }
+    }
+
+    public void remove(int id) {
+        AtomicLongArray chunk = chunks.get(id >>> PlayerTable.CHUNK_BITS);
+        if (chunk != null) chunk.set(id & PlayerTable.CHUNK_MASK, EMPTY);
+    }
+
+    public void clear() {
+        for (int c = 0; c < PlayerTable.CHUNKS; c++) {
+            AtomicLongArray chunk = chunks.get(c);
+            if (chunk == null) continue;
+            for (int i = 0; i < PlayerTable.CHUNK_SIZE; i++) {
+                chunk.set(i, EMPTY);
+            }
+        }
+    }
+
+    private AtomicLongArray chunk(int id) {
+        int index = id >>> PlayerTable.CHUNK_BITS;
+        AtomicLongArray chunk = chunks.get(index);
+        if (chunk == null) {
+            long[] empty = new long[PlayerTable.CHUNK_SIZE];
+            Arrays.fill(empty, EMPTY);
+            chunks.compareAndSet(index, null, new AtomicLongArray(empty));
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+}
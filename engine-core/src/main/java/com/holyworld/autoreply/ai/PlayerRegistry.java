@@ -0,0 +1,110 @@
+package com.holyworld.autoreply.ai;
+
+import java.util.Arrays;
+
+/**
+ * Interns player names to compact int ids, assigned in order of first sight.
+ *
+ * Everything per player (engine state, cooldowns, flood rings, timers) is indexed by the id,
+ * so a message hashes its sender's name once, here, instead of once per map it touches.
+ * Ids stay valid for the whole session: clearing a player's state never frees the id.
+ *
+ * Lookups of known names take no lock; assigning a new id is synchronized.
+ */
+public class PlayerRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    // 1024 chunks of 1024 in PlayerTable / PlayerLongTable
+    public static final int MAX_PLAYERS = 1 << 20;
+
+    // Open-addressing index, id + 1 per slot, 0 = empty; load kept at or below one half
+    private volatile int[] table = new int[256];
+    private volatile String[] names = new String[128];
+    private int size = 0;
+
+    /**
+     * Id of a known player, or UNKNOWN. Does not register the name.
+     */
+    public int find(String name) {
+        // table before names: a resize publishes names first, so these never mismatch
+        int[] t = table;
+        String[] byId = names;
+        int mask = t.length - 1;
+        for (int i = mix(name.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int entry = t[i];
+            if (entry == 0) return UNKNOWN;
+            int id = entry - 1;
+            if (id < byId.length && name.equals(byId[id])) return id;
+        }
+    }
+
+    /**
+     * Id of the player, registering the name on first sight.
+     */
+    public int idOf(String name) {
+        int id = find(name);
+        return id != UNKNOWN ? id : register(name);
+    }
+
+    public String nameOf(int id) {
+        String[] byId = names;
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // ======================== INTERNALS ========================
+
+    private synchronized int register(String name) {
+        int id = find(name);
+        if (id != UNKNOWN) return id;
+        if (size == MAX_PLAYERS) {
+            throw new IllegalStateException("Player registry full: " + MAX_PLAYERS + " names");
+        }
+
+        id = size++;
+        String[] byId = names;
+        if (id == byId.length) {
+            byId = Arrays.copyOf(byId, byId.length * 2);
+            names = byId;
+        }
+        byId[id] = name;
+
+        int[] t = table;
+        if (size * 2 > t.length) {
+            t = rehash(t.length * 2);
+        }
+        insert(t, name, id);
+        // Volatile write publishes the name and slot to lock-free readers
+        table = t;
+        return id;
+    }
+
+    private int[] rehash(int capacity) {
+        int[] t = new int[capacity];
+        String[] byId = names;
+        for (int id = 0; id < size - 1; id++) {
+            insert(t, byId[id], id);
+        }
+        return t;
+    }
+
+    private static void insert(int[] t, String name, int id) {
+        int mask = t.length - 1;
+        int i = mix(name.hashCode()) & mask;
+        while (t[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        t[i] = id + 1;
+    }
+
+    private static int mix(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+}
@@ -0,0 +1,95 @@
+package com.holyworld.autoreply.ai;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-player values indexed by {@link PlayerRegistry} id.
+ *
+ * Storage is a fixed directory of 1024-entry chunks allocated on first use and never moved,
+ * so reads are two array loads with no hashing, no boxing and no lock, and a writer can
+ * never race a resize. Thread-safe.
+ */
+public class PlayerTable<T> {
+
+    static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int CHUNKS = PlayerRegistry.MAX_PLAYERS >>> CHUNK_BITS;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> chunks = new AtomicReferenceArray<>(CHUNKS);
+    private final Supplier<T> factory;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public PlayerTable(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    public T get(int id) {
+        AtomicReferenceArray<T> chunk = chunks.get(id >>> CHUNK_BITS);
+        return chunk == null ? null : chunk.get(id & CHUNK_MASK);
+    }
+
+    /**
+     * The player's value, created by the factory if absent. Only the winning value of
+     * concurrent creators is ever returned.
+     */
+    public T getOrCreate(int id) {
+        AtomicReferenceArray<T> chunk = chunk(id);
+        int slot = id & CHUNK_MASK;
+        T value = chunk.get(slot);
+        if (value != null) return value;
+
+        T created = factory.get();
+        if (chunk.compareAndSet(slot, null, created)) {
+            size.incrementAndGet();
+            return created;
+        }
+        return chunk.get(slot);
+    }
+
+    /**
+     * Replace the player's value, returning the previous one.
+     */
+    public T put(int id, T value) {
+        T previous = chunk(id).getAndSet(id & CHUNK_MASK, value);
+        if (previous == null) size.incrementAndGet();
+        return previous;
+    }
+
+    public T remove(int id) {
+        AtomicReferenceArray<T> chunk = chunks.get(id >>> CHUNK_BITS);
+        if (chunk == null) return null;
+        T previous = chunk.getAndSet(id & CHUNK_MASK, null);
+        if (previous != null) size.decrementAndGet();
+        return previous;
+    }
+
+    public void clear() {
+        for (int c = 0; c < CHUNKS; c++) {
+            AtomicReferenceArray<T> chunk = chunks.get(c);
+            if (chunk == null) continue;
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (chunk.getAndSet(i, null) != null) size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Number of players with a value.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private AtomicReferenceArray<T> chunk(int id) {
+        int index = id >>> CHUNK_BITS;
+        AtomicReferenceArray<T> chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+}
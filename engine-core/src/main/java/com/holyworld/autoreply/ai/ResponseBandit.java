@@ -0,0 +1,276 @@
+package com.holyworld.autoreply.ai;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Thompson-sampling bandit over reply variants, one pool of arms per rule category.
+ *
+ * An arm is a (category, variant) pair with a Beta(1 + codes, 1 + misses) posterior. A sent
+ * variant scores a code when the player gives codes within {@link #REWARD_WINDOW_MS} of it, and a
+ * miss when the window passes or the check ends first. pick() draws once from each candidate's
+ * posterior and sends the highest draw, so variants that get codes sooner win more often while
+ * the others keep being tried.
+ *
+ * Counts are primitive arrays indexed by arm id. Every method is synchronized; evaluation and
+ * check events arrive a few times a second at most, so the lock is never contended.
+ */
+public class ResponseBandit {
+
+    public static final long REWARD_WINDOW_MS = 90_000;
+
+    // Unsettled variants remembered per player; the oldest is scored a miss when full
+    static final int MAX_PENDING = 8;
+
+    /**
+     * Arms of one rule category, variant text to arm id.
+     */
+    static final class Pool {
+        final String category;
+        final HashMap<String, Integer> arms = new HashMap<>();
+
+        Pool(String category) {
+            this.category = category;
+        }
+    }
+
+    public static final class ArmStats {
+        public final String category;
+        public final String variant;
+        public final int codes;
+        public final int misses;
+
+        ArmStats(String category, String variant, int codes, int misses) {
+            this.category = category;
+            this.variant = variant;
+            this.codes = codes;
+            this.misses = misses;
+        }
+
+        public int trials() {
+            return codes + misses;
+        }
+
+        /**
+         * Posterior mean of the code rate.
+         */
+        public double mean() {
+            return (codes + 1.0) / (codes + misses + 2.0);
+        }
+    }
+
+    private final HashMap<String, Pool> pools = new HashMap<>();
+    private int[] codes = new int[64];
+    private int[] misses = new int[64];
+    private String[] armCategory = new String[64];
+    private String[] armVariant = new String[64];
+    private int size = 0;
+    private boolean dirty = false;
+
+    // ======================== SELECTION ========================
+
+    synchronized Pool pool(String category) {
+        Pool pool = pools.get(category);
+        if (pool == null) {
+            pool = new Pool(category);
+            pools.put(category, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * One draw from the variant's posterior, registering the arm on first sight.
+     */
+    synchronized double sample(Pool pool, String variant, Random random) {
+        int arm = arm(pool, variant);
+        double x = gamma(codes[arm] + 1, random);
+        double y = gamma(misses[arm] + 1, random);
+        return x / (x + y);
+    }
+
+    // ======================== REWARDS ========================
+
+    /**
+     * The variant was sent to the player; it waits in their state until codes or a miss.
+     */
+    synchronized void sent(ResponseEngine.PlayerState state, Pool pool, String variant, long now) {
+        expire(state, now);
+        if (state.banditPending == MAX_PENDING) {
+            misses[state.banditArms[0]]++;
+            dirty = true;
+            System.arraycopy(state.banditArms, 1, state.banditArms, 0, MAX_PENDING - 1);
+            System.arraycopy(state.banditSentAt, 1, state.banditSentAt, 0, MAX_PENDING - 1);
+            state.banditPending--;
+        }
+        state.banditArms[state.banditPending] = arm(pool, variant);
+        state.banditSentAt[state.banditPending] = now;
+        state.banditPending++;
+    }
+
+    /**
+     * Score everything the player is still waiting on: codes for variants sent within the
+     * reward window when gaveCodes just flipped, misses otherwise.
+     */
+    synchronized void settle(ResponseEngine.PlayerState state, boolean gaveCodes, long now) {
+        for (int i = 0; i < state.banditPending; i++) {
+            if (gaveCodes && now - state.banditSentAt[i] <= REWARD_WINDOW_MS) {
+                codes[state.banditArms[i]]++;
+            } else {
+                misses[state.banditArms[i]]++;
+            }
+        }
+        if (state.banditPending > 0) dirty = true;
+        state.banditPending = 0;
+    }
+
+    /**
+     * Forget what the player is waiting on without scoring it, when the operator ends every
+     * check at once: that says nothing about the variants.
+     */
+    synchronized void discard(ResponseEngine.PlayerState state) {
+        state.banditPending = 0;
+    }
+
+    private void expire(ResponseEngine.PlayerState state, long now) {
+        int kept = 0;
+        for (int i = 0; i < state.banditPending; i++) {
+            if (now - state.banditSentAt[i] > REWARD_WINDOW_MS) {
+                misses[state.banditArms[i]]++;
+                dirty = true;
+            } else {
+                state.banditArms[kept] = state.banditArms[i];
+                state.banditSentAt[kept] = state.banditSentAt[i];
+                kept++;
+            }
+        }
+        state.banditPending = kept;
+    }
+
+    // ======================== STATS ========================
+
+    public synchronized List<ArmStats> snapshot() {
+        List<ArmStats> stats = new ArrayList<>(size);
+        for (int arm = 0; arm < size; arm++) {
+            stats.add(new ArmStats(armCategory[arm], armVariant[arm], codes[arm], misses[arm]));
+        }
+        return stats;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(codes, 0, size, 0);
+        Arrays.fill(misses, 0, size, 0);
+        dirty = true;
+    }
+
+    // ======================== PERSISTENCE ========================
+
+    /**
+     * Write category, variant, codes and misses as tab-separated lines, replacing the file atomically.
+     */
+    public void save(Path file) throws IOException {
+        List<ArmStats> stats;
+        synchronized (this) {
+            stats = snapshot();
+            dirty = false;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write("# category\tvariant\tcodes\tmisses\n");
+            for (ArmStats arm : stats) {
+                if (arm.trials() == 0) continue;
+                out.write(arm.category + '\t' + clean(arm.variant) + '\t' + arm.codes + '\t' + arm.misses + '\n');
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Add counts saved by {@link #save(Path)}. A missing file is not an error; malformed lines are skipped.
+     * Returns the number of arms read.
+     */
+    public int load(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        int loaded = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\t");
+                if (parts.length != 4) continue;
+                try {
+                    int c = Integer.parseInt(parts[2]);
+                    int m = Integer.parseInt(parts[3]);
+                    if (c < 0 || m < 0) continue;
+                    synchronized (this) {
+                        int arm = arm(pool(parts[0]), parts[1]);
+                        codes[arm] += c;
+                        misses[arm] += m;
+                    }
+                    loaded++;
+                } catch (NumberFormatException e) {
+                    // skipped
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // ======================== INTERNALS ========================
+
+    private int arm(Pool pool, String variant) {
+        Integer arm = pool.arms.get(variant);
+        if (arm != null) return arm;
+
+        int id = size++;
+        if (id == codes.length) {
+            int capacity = codes.length * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            misses = Arrays.copyOf(misses, capacity);
+            armCategory = Arrays.copyOf(armCategory, capacity);
+            armVariant = Arrays.copyOf(armVariant, capacity);
+        }
+        armCategory[id] = pool.category;
+        armVariant[id] = variant;
+        pool.arms.put(variant, id);
+        return id;
+    }
+
+    private static String clean(String variant) {
+        return variant.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Gamma(shape, 1) for shape >= 1, Marsaglia-Tsang.
+     */
+    private static double gamma(double shape, Random random) {
+        double d = shape - 1.0 / 3.0;
+        double c = 1.0 / Math.sqrt(9.0 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1.0 + c * x;
+            if (v <= 0) continue;
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (u < 1.0 - 0.0331 * x * x * x * x) return d * v;
+            if (Math.log(u) < 0.5 * x * x + d * (1.0 - v + Math.log(v))) return d * v;
+        }
+    }
+}
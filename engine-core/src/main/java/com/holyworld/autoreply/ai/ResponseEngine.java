@@ -0,0 +1,1797 @@
+package com.holyworld.autoreply.ai;
+
+import com.holyworld.autoreply.monitor.PipelineRecorder;
+import com.holyworld.autoreply.monitor.RuleEvaluationEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response engine that matches player messages during checks to appropriate moderator responses.
+ * Built from extensive log analysis of real moderator interactions on HolyWorld.
+ */
+public class ResponseEngine {
+
+    // Same logger name as the mod, so engine lines land next to the handler's in latest.log
+    private static final Logger LOGGER = LoggerFactory.getLogger("holyworld-autoreply");
+
+    private final PlayerRegistry players = new PlayerRegistry();
+    private final PlayerTable<PlayerState> playerStates = new PlayerTable<>(PlayerState::new);
+    // ===== HARDENED MODE =====
+    // Minecraft caps player chat at 256 characters, anything longer is crafted
+    public static final int MAX_MESSAGE_LENGTH = 256;
+    // Default thread CPU time a line may use from its arrival before it is answered by catchall instead,
+    // well under a 60 fps frame. CPU time, so a GC pause or a descheduled thread never uses it up.
+    public static final long EVALUATION_BUDGET_NANOS = 5_000_000;
+    // match() returns this when the budget ran out mid-scan
+    private static final int OVER_BUDGET = -2;
+    // Budget when not hardened, never reached
+    private static final long NO_BUDGET = Long.MAX_VALUE / 2;
+    // At most one over-budget warning per minute; the rest go to debug and /ai hardened counts them all
+    private static final long OVER_BUDGET_WARN_INTERVAL_NANOS = 60_000_000_000L;
+
+    private final List<ResponseRule> rules = new ArrayList<>();
+    // The rules each check phase scans, indexed by CheckPhase ordinal
+    private final List<List<ResponseRule>> phaseRules;
+    // Built-in rules merged with a language pack and split by phase, created the first time that language is seen
+    private final ConcurrentHashMap<Language, List<List<ResponseRule>>> languageRules = new ConcurrentHashMap<>();
+    // One cache per phase: a cached index points into that phase's rule list
+    private final RuleDecisionCache[] decisionCaches = new RuleDecisionCache[CheckPhase.COUNT];
+    // Per phase: messages evaluated, matchers run; transitions as from * COUNT + to
+    private final AtomicLongArray phaseMessages = new AtomicLongArray(CheckPhase.COUNT);
+    private final AtomicLongArray phaseRulesScanned = new AtomicLongArray(CheckPhase.COUNT);
+    private final AtomicLongArray phaseTransitions = new AtomicLongArray(CheckPhase.COUNT * CheckPhase.COUNT);
+    private volatile boolean verbose = true;
+    private volatile boolean hardened = true;
+    private volatile long evaluationBudgetNanos = EVALUATION_BUDGET_NANOS;
+    private final LongAdder truncated = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+    private final AtomicLong lastOverBudgetWarn = new AtomicLong(System.nanoTime() - OVER_BUDGET_WARN_INTERVAL_NANOS);
+    // Learned variant choice, null = uniform pick() (tools, corpus diff, warm-up)
+    private volatile ResponseBandit bandit;
+
+    public ResponseEngine() {
+        initializeRules();
+        phaseRules = partition(rules);
+        for (int p = 0; p < decisionCaches.length; p++) {
+            decisionCaches[p] = new RuleDecisionCache(1024);
+        }
+    }
+
+    // ======================== PLAYER STATE ========================
+
+    /**
+     * One player's check. Written only by getResponse while holding the state's monitor, so two
+     * messages from the same player are evaluated one after the other. Fields other threads read
+     * without the lock (timers, commands) are volatile.
+     */
+    public static class PlayerState {
+        public static final int CHECK_MINUTES = 7;
+
+        public final long checkStartTime;
+        public volatile int messageCount = 0;
+        public boolean askedForAnydesk = false;
+        public volatile boolean gaveCodes = false;
+        public boolean offeredConfession = false;
+        public boolean mentionedRudesk = false;
+        public boolean mentionedRustdesk = false;
+        public volatile String lastResponseCategory = "";
+        public volatile long lastMessageTime = 0;
+        public volatile CheckPhase phase = CheckPhase.GREETING;
+
+        // Variants sent this check and when, until ResponseBandit scores them
+        final int[] banditArms = new int[ResponseBandit.MAX_PENDING];
+        final long[] banditSentAt = new long[ResponseBandit.MAX_PENDING];
+        int banditPending = 0;
+
+        public PlayerState() {
+            this.checkStartTime = System.currentTimeMillis();
+        }
+
+        public long getElapsedMinutes() {
+            return (System.currentTimeMillis() - checkStartTime) / 60000;
+        }
+
+        public int getRemainingMinutes() {
+            int elapsed = (int) getElapsedMinutes();
+            return Math.max(1, CHECK_MINUTES - elapsed);
+        }
+    }
+
+    // ======================== RULE SYSTEM ========================
+
+    @FunctionalInterface
+    private interface RuleMatcher {
+        boolean matches(String msg, MessageText lower, PlayerState state, int playerId);
+    }
+
+    /**
+     * Matcher that only looks at the message text. Rules built from it are state-free,
+     * so their decision for a given message can be cached.
+     */
+    @FunctionalInterface
+    private interface TextMatcher {
+        boolean matches(String msg, MessageText lower);
+    }
+
+    @FunctionalInterface
+    private interface RuleResponder {
+        String respond(String msg, MessageText lower, PlayerState state, int playerId);
+    }
+
+    private static class ResponseRule {
+        final String category;
+        final int priority;
+        final boolean stateFree;
+        final RuleMatcher matcher;
+        final RuleResponder responder;
+
+        ResponseRule(String category, int priority, RuleMatcher matcher, RuleResponder responder) {
+            this.category = category;
+            this.priority = priority;
+            this.stateFree = false;
+            this.matcher = matcher;
+            this.responder = responder;
+        }
+
+        ResponseRule(String category, int priority, TextMatcher matcher, RuleResponder responder) {
+            this.category = category;
+            this.priority = priority;
+            this.stateFree = true;
+            this.matcher = (msg, l, s, n) -> matcher.matches(msg, l);
+            this.responder = responder;
+        }
+    }
+
+    // ======================== HELPERS ========================
+
+    // Per-thread seeded source for reproducible runs (corpus diff), null = ThreadLocalRandom
+    private static final ThreadLocal<Random> SEEDED_RANDOM = new ThreadLocal<>();
+
+    // Reusable normalization buffer, one per evaluating thread
+    private static final ThreadLocal<MessageText> TEXT_BUFFER = ThreadLocal.withInitial(MessageText::new);
+
+    /**
+     * Bandit context of the responder running on this thread. pick() offers every candidate,
+     * the highest posterior draw wins. pool is null outside a responder or without a bandit.
+     */
+    private static final class Selection {
+        ResponseBandit bandit;
+        ResponseBandit.Pool pool;
+        String candidate;
+        double best;
+        String chosen;
+
+        void begin(ResponseBandit bandit, ResponseBandit.Pool pool) {
+            this.bandit = bandit;
+            this.pool = pool;
+            this.chosen = null;
+        }
+
+        void offer(String variant) {
+            double draw = bandit.sample(pool, variant, ThreadLocalRandom.current());
+            if (candidate == null || draw > best) {
+                candidate = variant;
+                best = draw;
+            }
+        }
+
+        String take() {
+            chosen = candidate;
+            candidate = null;
+            return chosen;
+        }
+
+        void end() {
+            bandit = null;
+            pool = null;
+            candidate = null;
+        }
+    }
+
+    private static final ThreadLocal<Selection> SELECTION = ThreadLocal.withInitial(Selection::new);
+
+    // Remaining minutes are always 1..7, so every "N минут" reply is prebuilt
+    private static final String[] MIN = minuteStrings("%d min");
+    private static final String[] MIN_SHORT = minuteStrings("%d мин");
+    private static final String[] MINUTES = minuteStrings("%d минут");
+    private static final String[] MIN_FOR_YOU = minuteStrings("%d min у тебя");
+    private static final String[] MINUTES_LEFT = minuteStrings("У тебя %d минут осталось");
+
+    private static String[] minuteStrings(String template) {
+        String[] strings = new String[PlayerState.CHECK_MINUTES + 1];
+        for (int m = 0; m < strings.length; m++) {
+            // Plain replace: java.util.Formatter alone is a noticeable share of cold start
+            strings[m] = template.replace("%d", Integer.toString(m));
+        }
+        return strings;
+    }
+
+    private static int nextInt(int bound) {
+        Random seeded = SEEDED_RANDOM.get();
+        return seeded != null ? seeded.nextInt(bound) : ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    /*
+     * Fixed-arity overloads so rule code never builds a varargs array per message.
+     * Larger keyword lists are declared once in initializeRules and captured by the rule.
+     */
+
+    static String pick(String[] opts) {
+        Selection sel = SELECTION.get();
+        if (sel.pool != null) {
+            for (String opt : opts) sel.offer(opt);
+            return sel.take();
+        }
+        return opts[nextInt(opts.length)];
+    }
+
+    private static String pick(String a, String b) {
+        Selection sel = SELECTION.get();
+        if (sel.pool != null) {
+            sel.offer(a);
+            sel.offer(b);
+            return sel.take();
+        }
+        return nextInt(2) == 0 ? a : b;
+    }
+
+    private static String pick(String a, String b, String c) {
+        Selection sel = SELECTION.get();
+        if (sel.pool != null) {
+            sel.offer(a);
+            sel.offer(b);
+            sel.offer(c);
+            return sel.take();
+        }
+        switch (nextInt(3)) {
+            case 0: return a;
+            case 1: return b;
+            default: return c;
+        }
+    }
+
+    private static String pick(String a, String b, String c, String d) {
+        Selection sel = SELECTION.get();
+        if (sel.pool != null) {
+            sel.offer(a);
+            sel.offer(b);
+            sel.offer(c);
+            sel.offer(d);
+            return sel.take();
+        }
+        switch (nextInt(4)) {
+            case 0: return a;
+            case 1: return b;
+            case 2: return c;
+            default: return d;
+        }
+    }
+
+    private static String pick(String a, String b, String c, String d, String e) {
+        Selection sel = SELECTION.get();
+        if (sel.pool != null) {
+            sel.offer(a);
+            sel.offer(b);
+            sel.offer(c);
+            sel.offer(d);
+            sel.offer(e);
+            return sel.take();
+        }
+        switch (nextInt(5)) {
+            case 0: return a;
+            case 1: return b;
+            case 2: return c;
+            case 3: return d;
+            default: return e;
+        }
+    }
+
+    /**
+     * Make pick() on the calling thread deterministic until {@link #unseedThread()}.
+     * Tools re-seed before every message so results do not depend on evaluation order.
+     */
+    public static void seedThread(long seed) {
+        Random seeded = SEEDED_RANDOM.get();
+        if (seeded == null) {
+            SEEDED_RANDOM.set(new Random(seed));
+        } else {
+            seeded.setSeed(seed);
+        }
+    }
+
+    public static void unseedThread() {
+        SEEDED_RANDOM.remove();
+    }
+
+    static boolean has(MessageText text, String[] keywords) {
+        for (String kw : keywords) {
+            if (text.contains(kw)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Matcher for rules that fire on any of their keywords. All of them share this one lambda, so
+     * building the rule list does not link a call site per rule (most of a cold CLI start).
+     */
+    private static TextMatcher anyOf(String... keywords) {
+        return (msg, l) -> has(l, keywords);
+    }
+
+    // Rules that only categorize the message (ban signals, codes): nothing is sent
+    private static final RuleResponder NO_REPLY = (msg, l, s, n) -> null;
+
+    /**
+     * Responder for rules whose reply does not depend on the message or the check, see
+     * {@link #anyOf(String...)}.
+     */
+    private static RuleResponder oneOf(String... replies) {
+        return (msg, l, s, n) -> pick(replies);
+    }
+
+    private static boolean has(MessageText text, String a) {
+        return text.contains(a);
+    }
+
+    private static boolean has(MessageText text, String a, String b) {
+        return text.contains(a) || text.contains(b);
+    }
+
+    private static boolean has(MessageText text, String a, String b, String c) {
+        return text.contains(a) || text.contains(b) || text.contains(c);
+    }
+
+    private static boolean has(MessageText text, String a, String b, String c, String d) {
+        return text.contains(a) || text.contains(b) || text.contains(c) || text.contains(d);
+    }
+
+    /**
+     * 6-10 ASCII digits once everything else is stripped, e.g. "123 456 789" or "123-456-789".
+     */
+    private static boolean isCode(String text) {
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9' && ++digits > 10) return false;
+        }
+        return digits >= 6;
+    }
+
+    // ======================== RULES ========================
+
+    private void initializeRules() {
+
+        // ===== PRIORITY 100: INSULTS -> BAN SIGNAL =====
+        String[] insultKeywords = {
+            "нахуй", "нахуи", "пошел нах", "пошёл нах", "иди нах",
+            "хуй", "хуи", "хуе", "хуё", "хуесос", "хуёсос",
+            "ебал", "ебан", "ебат", "ебу", "ёба",
+            "сука", "суки", "сучка", "блядь", "бляд", "блять",
+            "далбаеб", "долбаеб", "долбоеб", "дебил",
+            "мразь", "урод", "гандон", "гондон",
+            "пидор", "пидр", "педик",
+            "чмо", "чмошник",
+            "безмамн", "мертвой мам", "мёртвой мам",
+            "твою мать", "маму ебал", "маме пизд",
+            "пузо вырезал", "сын бляд", "сын свинь",
+            "соси", "саси", "сосо езз",
+            "пизд", "пизду"
+        };
+        rules.add(new ResponseRule("insult", 100,
+            anyOf(insultKeywords),
+            NO_REPLY
+        ));
+
+        // ===== PRIORITY 95: EXPLICIT CONFESSION =====
+        String[] confessionKeywords = {
+            "я софт", "я читер", "я чит ", "я читор",
+            "я с софт", "я с читами", "я играю с чит",
+            "у меня софт", "у меня чит", "у меня читы",
+            "у меня x-ray", "у меня xray",
+            "я с модом", "я с софтом",
+            "я читер бб", "я чит бань", "я чит баньте",
+            "у меня селестиал", "у меня celestial",
+            "у меня night", "с софтом бань",
+            "признание ентити", "за хранения забань",
+            "у меня всего x-ray",
+            "все равно айпи сменю", "всё равно на этот акк",
+            "мне все равно на этот", "мне всё равно на этот",
+            "бань нахуй", "хочеш бань", "хочешь бань"
+        };
+        rules.add(new ResponseRule("confession", 95,
+            anyOf(confessionKeywords),
+            NO_REPLY
+        ));
+
+        // ===== PRIORITY 94: LEAVE / BB =====
+        String[] leaveKeywords = {
+            "bb all", "бб всем", "all bb",
+            "лад баньте", "ладно баньте", "ладна банте",
+            "давай бан", "я жду бан",
+            "качать не охота", "качать не буду",
+            "не буду ничего скачивать",
+            "не хочу раст", "бб короче"
+        };
+        rules.add(new ResponseRule("leave", 94,
+            (msg, l) -> {
+                return l.is("бб") || l.is("bb") ||
+                    has(l, leaveKeywords);
+            },
+            (msg, l, s, n) -> {
+                if (has(l, "удачи")) return "Спасибо за сотрудничество";
+                return null;
+            }
+        ));
+
+        // ===== PRIORITY 93: EXPLICIT REFUSAL =====
+        String[] refusalKeywords = {
+            "отпусти", "мне лень",
+            "забань на минимальн", "эту залупу",
+            "я не буду ничего", "баньте"
+        };
+        rules.add(new ResponseRule("refusal", 93,
+            anyOf(refusalKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "мне лень", "залупу", "баньте", "не буду")) return null;
+                return pick("Скачивай анидеск", "Аник жду");
+            }
+        ));
+
+        // ===== PRIORITY 92: SHORT CONFESSION =====
+        String[] confessionShortKeywords = {
+            "признаюсь что", "я признаюсь", "я признаюс",
+            "хорошо я признаюсь", "ладно я софт"
+        };
+        rules.add(new ResponseRule("confession_short", 92,
+            (msg, l) -> {
+                return l.is("признание") || l.is("признаюсь") || l.is("признаю") ||
+                       l.is("го признание") ||
+                       has(l, confessionShortKeywords);
+            },
+            NO_REPLY
+        ));
+
+        // ===== PRIORITY 85: ANYDESK/RUDESK CODE =====
+        rules.add(new ResponseRule("code", 85,
+            (msg, l) -> isCode(msg),
+            (msg, l, s, n) -> {
+                s.gaveCodes = true;
+                return pick("Принимай", "+", "Грузит", "Ща подключусь", "Принимай запрос");
+            }
+        ));
+
+        // ===== PRIORITY 83: DISCORD OFFER =====
+        String[] discordKeywords = {
+            "через дс", "давай дс", "дс можно", "го дс", "го в дс",
+            "го через дс", "можно дс", "мб дс", "по дс",
+            "давай в дс", "го по дс", "давай по дс",
+            "через дискорд", "можно дискорд", "го дискорд",
+            "мой дс", "могу в дс", "могу дс",
+            "через д ", "go cheres ds", "go w ds",
+            "это дс", "я дс кинул", "дс пойти",
+            "в звонок", "пойдем в звонок",
+            "давай в дискорд", "го по диск"
+        };
+        rules.add(new ResponseRule("discord", 83,
+            anyOf(discordKeywords),
+            oneOf("-", "По дс проверки не проводим", "Анидеск скачивай", "Скачивай аник")
+        ));
+
+        // ===== PRIORITY 82: VK / TG / OTHER =====
+        String[] otherPlatformKeywords = {
+            "через вк", "го вк", "го в вк", "можно вк",
+            "через тг", "го тг", "тг можно", "можно тг",
+            "есть тг", "есть вк",
+            "в коменты", "демонстрация", "демку",
+            "го по вк"
+        };
+        rules.add(new ResponseRule("other_platform", 82,
+            anyOf(otherPlatformKeywords),
+            oneOf("-", "Скачивай аник")
+        ));
+
+        // ===== PRIORITY 81: LM / MESSAGE OFFERS =====
+        rules.add(new ResponseRule("lm_offer", 81,
+            anyOf("можно в лс", "могу в лс", "кому в лс"),
+            oneOf("Мне", "Принимай")
+        ));
+
+        // ===== PRIORITY 80: GREETING =====
+        String[] greetingKeywords = {
+            "привет", "прив", "хай", "здравств", "приветик", "прывект"
+        };
+        rules.add(new ResponseRule("greeting", 80,
+            (msg, l, s, n) -> {
+                if (s.messageCount > 3) return false;
+                return has(l, greetingKeywords) ||
+                       l.is("ку") || l.is("qq") || l.is("hi");
+            },
+            (msg, l, s, n) -> {
+                if (has(l, "привет я не читер")) {
+                    return pick("Привет давай аник", "Привет скачивай анидеск");
+                }
+                return pick(
+                    "Это проверка на читы, у Вас есть 7 мин. чтобы скинуть AnyDesk и пройти проверку! Признание уменьшает наказание! В случае отказа/выхода/игнора - Бан!",
+                    "Привет! Жду аник",
+                    "qq жду аник",
+                    "Приветики) Жду аник"
+                );
+            }
+        ));
+
+        // ===== PRIORITY 78: WHY CHECK / REASON =====
+        String[] reasonKeywords = {
+            "за что", "причина", "за что прове",
+            "почему вызвал", "за что вызвал",
+            "почему меня", "что я сделал", "что я зделал",
+            "а чо решил", "что случилось",
+            "а за что", "за что собственно",
+            "какая проверка", "а чё это",
+            "я тока зашёл", "я только зашел",
+            "я возле дк", "я бутылочки",
+            "я зельки", "я сижу шахту",
+            "я просто игра", "я на спавне",
+            "а щас то за что", "в чем причина",
+            "зачем вызвал", "а за что проверка",
+            "за что проверка", "чего блять"
+        };
+        rules.add(new ResponseRule("reason", 78,
+            anyOf(reasonKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "причина", "в чем причина")) {
+                    return pick("Многочисленные репорты", "Репорты",
+                        "Модератор в праве не разглашать причину проверки игроку", "За все хорошее");
+                }
+                return pick("За все хорошее", "Репорты", "Надо", "Многочисленные репорты", "Играл");
+            }
+        ));
+
+        // ===== PRIORITY 77: NOT CHEATER =====
+        String[] notCheaterKeywords = {
+            "я не читер", "я не читар", "я не софт",
+            "я чист", "у меня нет читов", "у меня нету читов",
+            "без читов", "без софта", "я ансофт",
+            "я 100% ансофт", "я не использую",
+            "я легит", "я без", "я готов пройти"
+        };
+        rules.add(new ResponseRule("not_cheater", 77,
+            anyOf(notCheaterKeywords),
+            oneOf("Скачивай аник", "Верю скачивай", "Аник жду",
+                "Скачивай анидеск", "Ну я жду")
+        ));
+
+        // ===== PRIORITY 75: WHAT IS ANYDESK =====
+        String[] whatAnydeskKeywords = {
+            "что за аник", "что такое аник", "что за анидеск",
+            "что такое анидеск", "что это за прог",
+            "что за прога", "удаленный доступ",
+            "типо ты в моем", "будешь лазать",
+            "управлять моим", "че за прога",
+            "анидеск это что", "а что это"
+        };
+        rules.add(new ResponseRule("what_anydesk", 75,
+            anyOf(whatAnydeskKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "типо ты в моем", "будешь лазать", "управлять моим")) return "+";
+                return pick("Программа удаленного доступа", "Удаленный доступ",
+                    "Программа такая", "Проверка");
+            }
+        ));
+
+        // ===== PRIORITY 74: DOWNLOADING STATUS =====
+        String[] downloadingKeywords = {
+            "скачиваю", "скачиваеться", "скачивается",
+            "качаю", "качается", "загружается", "грузит",
+            "устанавливаю", "устанавливается",
+            "пачти скачался", "почти скачал",
+            "немного осталось", "ок ща скачаю",
+            "щас скачаю", "ща скачаю",
+            "загрузил", "скачал", "жди качаю",
+            "ок скачаю", "я качаю", "скачиваетсяя"
+        };
+        rules.add(new ResponseRule("downloading", 74,
+            anyOf(downloadingKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "скачал", "загрузил", "скачался")) {
+                    return pick("Кидай код", "Кидай длинный код", "Открывай его");
+                }
+                int r = s.getRemainingMinutes();
+                return pick("Жду", MIN[r], MINUTES[r], "Жду жду", "Время идет");
+            }
+        ));
+
+        // ===== PRIORITY 73: CANT DOWNLOAD =====
+        String[] cantDownloadKeywords = {
+            "не скачивается", "не качается", "не загружается",
+            "не грузит", "не могу скачать",
+            "не работает", "не робит", "ошибка",
+            "вирус", "трояны", "не дает скачать",
+            "не запускается", "немагу", "не магу",
+            "сайт не грузит", "не открывается",
+            "виндоус", "антивирус", "бяка",
+            "у меня не работает", "у меня не скачивается",
+            "не могу понять", "не выходит",
+            "у меня ошибка"
+        };
+        rules.add(new ResponseRule("cant_download", 73,
+            anyOf(cantDownloadKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "аник не", "анидеск не")) {
+                    if (!s.mentionedRudesk) {
+                        s.mentionedRudesk = true;
+                        return pick("Скачивай RuDeskTop", "Качай рудеск", "Газуй рудеск");
+                    }
+                    if (!s.mentionedRustdesk) {
+                        s.mentionedRustdesk = true;
+                        return pick("Скачивай RustDesk", "Качай RustDesk");
+                    }
+                }
+                if (!s.mentionedRudesk) {
+                    s.mentionedRudesk = true;
+                    return pick("Все должно работать", "Скачивай RuDeskTop");
+                }
+                return pick("Все должно работать", "Скачивай RustDesk");
+            }
+        ));
+
+        // ===== PRIORITY 72: DONT HAVE ANYDESK =====
+        String[] noAnydeskKeywords = {
+            "нету аник", "нет аник", "у меня нету ани",
+            "у меня нет ани", "аника нет", "анидеска нет",
+            "нету такого", "нету его",
+            "у меня нету", "нету программы",
+            "нет программы", "у меня нет никакой",
+            "просто нету", "тут анидеска нет"
+        };
+        rules.add(new ResponseRule("no_anydesk", 72,
+            anyOf(noAnydeskKeywords),
+            oneOf("Скачивай", "Скачивай анидеск", "Качай")
+        ));
+
+        // ===== PRIORITY 71: RUDESK =====
+        String[] rudeskKeywords = {
+            "рудеск", "rudesk", "rudesktop", "рудесктоп",
+            "рудекс", "рудекстор", "рудескоп",
+            "можно по рудеск", "рудеск сойдет",
+            "а рудеск не подойдет"
+        };
+        rules.add(new ResponseRule("rudesk", 71,
+            anyOf(rudeskKeywords),
+            (msg, l, s, n) -> {
+                s.mentionedRudesk = true;
+                if (has(l, "можно", "подойдет", "сойдет")) return pick("+", "Газуй", "Да");
+                return pick("+", "Газуй", "Скачивай");
+            }
+        ));
+
+        // ===== PRIORITY 70: RUSTDESK =====
+        String[] rustdeskKeywords = {
+            "растдеск", "растдекс", "раст деск", "раст декс",
+            "rustdesk", "rust desk"
+        };
+        rules.add(new ResponseRule("rustdesk", 70,
+            anyOf(rustdeskKeywords),
+            (msg, l, s, n) -> {
+                s.mentionedRustdesk = true;
+                if (has(l, "можно", "подойдет", "сойдет", "могу")) return pick("+", "Да");
+                return pick("+", "Скачивай");
+            }
+        ));
+
+        // ===== PRIORITY 69: WHERE DOWNLOAD =====
+        String[] whereDownloadKeywords = {
+            "где скачать", "как скачать", "откуда скачат",
+            "хз как скачать", "с какого сайта",
+            "какая ссылка", "какая сылка",
+            "а что надо скачать", "что скачать",
+            "что качать", "название ани",
+            "а где код", "где код найти",
+            "в плей маркете", "в плеймаркете",
+            "в гугл плей", "где его найти",
+            "скинь ссылку"
+        };
+        rules.add(new ResponseRule("where_download", 69,
+            anyOf(whereDownloadKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "код", "где код")) {
+                    return pick("При запуске сразу будет", "Прямо на самом видном месте",
+                        "Открываешь и смотришь");
+                }
+                if (has(l, "название")) return "Да";
+                return pick("anydesk com", "В гугле пиши анидеск", "Инструкция в чате",
+                    "Инструкция в лс", "В браузере пиши anydesk com");
+            }
+        ));
+
+        // ===== PRIORITY 68: PHONE PLAYER =====
+        String[] phoneKeywords = {
+            "я с телефон", "с телефона", "на телефоне",
+            "я на тел", "с мобильн", "на андроид"
+        };
+        rules.add(new ResponseRule("phone", 68,
+            anyOf(phoneKeywords),
+            oneOf("Скачивай аник на телефон", "Скачивай анидеск на телефон",
+                "Вообще не волнует")
+        ));
+
+        // ===== PRIORITY 67: WHAT NEXT =====
+        String[] whatNextKeywords = {
+            "что дальше", "чё дальше", "что делать",
+            "чё делать", "что мне делать", "чо делать",
+            "что скидывать", "что нужно делать",
+            "как мне пройти", "что сделать",
+            "куда жмать", "куда тыкать",
+            "я не понимаю", "угу дальше",
+            "чё делать то", "как пользоват",
+            "что мне надо делать"
+        };
+        rules.add(new ResponseRule("what_next", 67,
+            anyOf(whatNextKeywords),
+            (msg, l, s, n) -> {
+                if (s.gaveCodes) return pick("Принимай", "Принять нажми");
+                if (s.askedForAnydesk) return pick("Кидай код", "Кидай длинный код", "Скидывай код");
+                return pick("Скачивай анидеск", "Все инструкции в чате", "Инструкция в лс");
+            }
+        ));
+
+        // ===== PRIORITY 66: TIME LEFT =====
+        String[] timeKeywords = {
+            "скок времени", "сколько времени", "скок время",
+            "скок минут", "сколько минут", "скок у меня",
+            "сколько у меня", "сколько ещё", "сколько еще",
+            "сколько осталось", "скок осталось",
+            "доп время", "продли время", "дай время",
+            "можно доп", "можно подождать"
+        };
+        rules.add(new ResponseRule("time", 66,
+            anyOf(timeKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "доп", "продли", "подождать")) return pick("-", "Нет");
+                int r = s.getRemainingMinutes();
+                return pick(MIN[r], MINUTES[r], MIN_SHORT[r]);
+            }
+        ));
+
+        // ===== PRIORITY 65: WAIT =====
+        String[] waitKeywords = {
+            "подожд", "погод", "чуть чуть", "жди", "ша сек",
+            "щяс", "щаща", "щас сек", "ок щас"
+        };
+        rules.add(new ResponseRule("wait", 65,
+            (msg, l) -> {
+                return l.is("ща") || l.is("щас") || l.is("сек") || l.is("секу") ||
+                    has(l, waitKeywords);
+            },
+            (msg, l, s, n) -> {
+                int r = s.getRemainingMinutes();
+                return pick("Жду", MINUTES[r], "+", "Давай");
+            }
+        ));
+
+        // ===== PRIORITY 64: CONFESSION QUESTION =====
+        String[] confessionQKeywords = {
+            "какое признание", "признание в чем", "что за признание",
+            "какое", "на скок меньше", "на сколько забаните",
+            "сколько бан", "на сколько бан", "а скок целый"
+        };
+        rules.add(new ResponseRule("confession_q", 64,
+            anyOf(confessionQKeywords),
+            (msg, l, s, n) -> {
+                s.offeredConfession = true;
+                if (has(l, "какое")) return "Признание в читах";
+                return pick("Признание 20 дней, отказ 30 дней", "30 дней", "на 10 дней");
+            }
+        ));
+
+        // ===== PRIORITY 63: ACCEPT =====
+        String[] acceptKeywords = {
+            "принял", "я принял", "как принять",
+            "приинимать", "принимаю", "нет кнопки",
+            "не пришло", "от имени", "от кого"
+        };
+        rules.add(new ResponseRule("accept", 63,
+            anyOf(acceptKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "как принять", "нет кнопки")) return "Нажми кнопку принять";
+                if (has(l, "от имени", "от кого")) return "Любой";
+                if (has(l, "не пришло")) return "Принимай";
+                return pick("+", "Пред 1/3 не трогай мышку");
+            }
+        ));
+
+        // ===== PRIORITY 62: REGISTRATION =====
+        rules.add(new ResponseRule("registration", 62,
+            anyOf("регаюсь", "регаться", "регистрац", "зарегаю"),
+            (msg, l, s, n) -> "Не надо там регаться"
+        ));
+
+        // ===== PRIORITY 61: MINIMAP =====
+        rules.add(new ResponseRule("minimap", 61,
+            anyOf("миникарта", "минимап", "пульс это"),
+            (msg, l, s, n) -> {
+                if (has(l, "пульс")) {
+                    if (has(l, "офиц")) return "Не не софт";
+                    return "Смотря какой";
+                }
+                return "+";
+            }
+        ));
+
+        // ===== PRIORITY 60: REPORT PLAYER =====
+        String[] reportKeywords = {
+            "тут один читер", "тут читер", "могу дать его ник",
+            "против меня софтер", "стажеры с софтом", "стажёры с софтом"
+        };
+        rules.add(new ResponseRule("report", 60,
+            anyOf(reportKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "могу дать", "могу ник")) return "Давай";
+                if (has(l, "стажер", "стажёр")) return "Примем меры";
+                return pick("Давай", "Напиши /cr nik");
+            }
+        ));
+
+        // ===== PRIORITY 59: RESOURCE REQUESTS =====
+        String[] resourcesKeywords = {
+            "можно ресы", "ресы раздам", "можно сложити",
+            "можно баблко", "деньги отдам", "дам сетку",
+            "можно кинуть", "дай денег", "тимейту деньги",
+            "можно груз", "можно пеперони"
+        };
+        rules.add(new ResponseRule("resources", 59,
+            anyOf(resourcesKeywords),
+            oneOf("-", "Неа")
+        ));
+
+        // ===== PRIORITY 58: LEGAL CONCERNS =====
+        String[] legalKeywords = {
+            "не законно", "незаконно", "незаконо",
+            "переживаю за", "не доверяю",
+            "родительский контроль"
+        };
+        rules.add(new ResponseRule("legal", 58,
+            anyOf(legalKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "родительский")) return "Скачивай анидеск проси разрешения";
+                return "1.Заходя на сервер вы соглашаетесь с правилами и при проверке вы обязаны предоставить анидеск";
+            }
+        ));
+
+        // ===== PRIORITY 57: FROM RUSSIA =====
+        String[] fromRfKeywords = {
+            "я из рф", "я с рф", "из рф", "с рф", "из россии",
+            "аник не ворк на территории"
+        };
+        rules.add(new ResponseRule("from_rf", 57,
+            anyOf(fromRfKeywords),
+            (msg, l, s, n) -> {
+                s.mentionedRudesk = true;
+                return pick("Скачивай RuDeskTop", "Cкачивай RuDeskTop",
+                    "Скачивай RuDeskTop или запускай впн на пк и с впн аник включай");
+            }
+        ));
+
+        // ===== PRIORITY 56: VPN =====
+        rules.add(new ResponseRule("vpn", 56,
+            anyOf("впн", "vpn", "кикнет"),
+            oneOf("Скачивай RuDeskTop значит", "Скачивай RuDeskTop")
+        ));
+
+        // ===== PRIORITY 55: PREVIOUSLY CHECKED =====
+        String[] prevCheckKeywords = {
+            "меня проверяли", "уже проверяли",
+            "вчера проверял", "проверяли сегодня",
+            "я вчера прову"
+        };
+        rules.add(new ResponseRule("prev_check", 55,
+            anyOf(prevCheckKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "сегодня")) return pick("Я тебя еще раз проверю", "Ща проверю");
+                if (has(l, "вчера")) return "Обманывать не хорошо";
+                return "Аник жду";
+            }
+        ));
+
+        // ===== PRIORITY 54: PAID / FREE =====
+        String[] paidKeywords = {
+            "платная", "платный", "платно",
+            "евро надо", "бесплатн", "расширеная"
+        };
+        rules.add(new ResponseRule("paid", 54,
+            anyOf(paidKeywords),
+            oneOf("Она не платная", "Он бесплатный",
+                "Заходишь на сайт anydesk com для домашнего использования")
+        ));
+
+        // ===== PRIORITY 52: YES/OK/DA =====
+        rules.add(new ResponseRule("yes", 52,
+            (msg, l) -> {
+                return l.is("да") || l.is("да?") || l.is("+") ||
+                    l.is("ок") || l.is("окей") || l.is("ладно") ||
+                    l.is("хорошо") || l.is("понял") || l.is("пон") ||
+                    l.is("угу") || l.is("ну") || l.is("ага") ||
+                    l.is("da") || l.is("ladno") || l.is("ну ок") ||
+                    l.is("тогд ок") || l.is("тогда ок");
+            },
+            (msg, l, s, n) -> {
+                if (!s.askedForAnydesk) {
+                    s.askedForAnydesk = true;
+                    return MIN_FOR_YOU[s.getRemainingMinutes()];
+                }
+                if (s.gaveCodes) return pick("Принимай", "+");
+                return pick("Жду", "+", "Давай", "Скачивай");
+            }
+        ));
+
+        // ===== PRIORITY 51: QUESTION MARKS =====
+        rules.add(new ResponseRule("qmarks", 51,
+            (msg, l) -> l.consistsOf("?"),
+            (msg, l, s, n) -> {
+                if (s.messageCount <= 2) return "Проверка";
+                return pick("Аник жду", "Жду", "Скачивай аник");
+            }
+        ));
+
+        // ===== PRIORITY 50: SHORT WORDS =====
+        String[] shortKeywords = {
+            "ты тут", "ты здесь", "ало", "ау", "модер", "але"
+        };
+        rules.add(new ResponseRule("short", 50,
+            (msg, l) -> {
+                return l.is("аник") || l.is("аник?") || l.is("кидай") ||
+                    l.is("ну че") || l.is("ну чо") || l.is("го") || l.is("go") ||
+                    l.is("вот") || l.is("на") || l.is("это?") ||
+                    l.is("ало") || l.is("ау") || l.is("аууу") ||
+                    l.is("модер") || l.is("ты тут") || l.is("ты тут?") ||
+                    l.is("ты здесь") || l.is("ты здесь?") || l.is("але");
+            },
+            (msg, l, s, n) -> {
+                if (has(l, "аник")) return pick("+", "Жду код");
+                if (has(l, "кидай")) return pick("Ты из рф?", "Кидай код");
+                if (has(l, "вот", "на", "это")) return pick("+", "Принимай");
+                if (has(l, shortKeywords))
+                    return pick("Да да я тут", "+", "Я тут");
+                return pick("Жду аник", "+", "Аник жду");
+            }
+        ));
+
+        // ===== PRIORITY 48: WEAK PC =====
+        String[] weakPcKeywords = {
+            "пк слаб", "комп слаб", "интернет слаб",
+            "инет слаб", "инет говно", "пк за 15к",
+            "медленно качается", "микроволновк",
+            "черный экран", "лагает"
+        };
+        rules.add(new ResponseRule("weak_pc", 48,
+            anyOf(weakPcKeywords),
+            (msg, l, s, n) -> pick("Жду еще минута у тебя", MINUTES[s.getRemainingMinutes()], "Скачивай")
+        ));
+
+        // ===== PRIORITY 47: PUBLIC COMPUTER =====
+        rules.add(new ResponseRule("public_pc", 47,
+            anyOf("в компах", "в компьютерн", "нельзя скачивать"),
+            oneOf("Зови админа аник обычно на таких компах есть", "Тг есть?")
+        ));
+
+        // ===== PRIORITY 46: EMOJI/EMOTIONAL =====
+        rules.add(new ResponseRule("emotional", 46,
+            (msg, l) -> {
+                return l.is(")") || l.consistsOf(")(") ||
+                    l.is("хаха") || l.is("хахаха") || l.is("ахахах") ||
+                    l.is("xd") || l.is("найс") || l.is("nais") ||
+                    l.is("круто") || l.is("прикольно") ||
+                    l.is("гг") || l.is("лол");
+            },
+            (msg, l, s, n) -> {
+                if (has(l, "хаха", "ахах", "xd")) return pick("После проверки)", "Аник жду");
+                if (has(l, ")")) return "Признание уменьшает срок на 35%";
+                return pick("Аник жду", "+");
+            }
+        ));
+
+        // ===== PRIORITY 45: STALLING =====
+        String[] stallingKeywords = {
+            "я в дубае", "расказу", "поговорим",
+            "пока прову", "а можно пеперони",
+            "забаниш я ночь", "в подушку плакать",
+            "мне пизда", "я девка", "по приказу",
+            "4 твинк", "чуть чуть"
+        };
+        rules.add(new ResponseRule("stalling", 45,
+            anyOf(stallingKeywords),
+            (msg, l, s, n) -> {
+                if (has(l, "мне пизда")) {
+                    s.offeredConfession = true;
+                    return "Признание уменьшает бан на 35%";
+                }
+                if (has(l, "подушку плакать")) return "Адекватно веди себя";
+                return pick("Аник жду", "Бро не тяни время", "Аник или признание");
+            }
+        ));
+
+        // ===== PRIORITY 44: AUTO CONFESSION OFFER =====
+        rules.add(new ResponseRule("auto_confess", 44,
+            (msg, l, s, n) -> s.messageCount > 5 && !s.offeredConfession && s.getElapsedMinutes() >= 3,
+            (msg, l, s, n) -> {
+                s.offeredConfession = true;
+                return pick("Признание уменьшает наказание на 35%",
+                    "Признание уменьшает срок бана на 35%",
+                    "Давай что бы время не тратить ты признаешься и я забаню на 35% меньше");
+            }
+        ));
+
+        // ===== PRIORITY 43: NO =====
+        rules.add(new ResponseRule("no", 43,
+            (msg, l) -> {
+                return l.is("нет") || l.is("не") || l.is("неа") || l.is("нее") ||
+                    l.startsWith("нееее");
+            },
+            oneOf("Тогда жду аник", "Скачивай аник", "Аник жду")
+        ));
+
+        // ===== PRIORITY 40: TRANSLITERATION =====
+        rules.add(new ResponseRule("translit", 40,
+            anyOf("vse bani", "i skacat ne mogy", "togda idi v pizdy"),
+            (msg, l, s, n) -> {
+                if (has(l, "vse bani")) return null;
+                if (has(l, "pizdy")) return null;
+                if (has(l, "ne mogy")) return "Ты сможешь я в тебя верю";
+                return "Скачивай аник";
+            }
+        ));
+
+        // ===== PRIORITY 38: CONNECTION ISSUES =====
+        String[] connectionKeywords = {
+            "клиент не в сети", "не подключается",
+            "соединение заверш", "не воркает",
+            "ошибка подключ", "кинь еще раз",
+            "попробуй еще раз"
+        };
+        rules.add(new ResponseRule("connection", 38,
+            anyOf(connectionKeywords),
+            oneOf("Скачивай RustDesk", "Переприми", "Переустанови аник")
+        ));
+
+        // ===== PRIORITY 35: ENGLISH TEXT =====
+        rules.add(new ResponseRule("english", 35,
+            anyOf("всё на англ", "все на англ", "на английском"),
+            (msg, l, s, n) -> MINUTES_LEFT[s.getRemainingMinutes()]
+        ));
+
+        // ===== PRIORITY 30: PLUGIN AD1 =====
+        String[] pluginKeywords = {
+            "плагин", "plugin", "ad1", "три линии", "полный доступ"
+        };
+        rules.add(new ResponseRule("plugin", 30,
+            anyOf(pluginKeywords),
+            (msg, l, s, n) -> "нажать слева сверху на три линии в anydesk, настройкА --> Плагин AD1 --> Активировать!"
+        ));
+
+        // ===== PRIORITY 25: DONE / THANKS =====
+        String[] doneKeywords = {
+            "я прошел", "я прошёл", "все?", "всё?",
+            "спасибо", "спс"
+        };
+        rules.add(new ResponseRule("done", 25,
+            anyOf(doneKeywords),
+            oneOf("Рад помочь", "Пред 1/3 не трогай мышку", "+")
+        ));
+
+        // ===== PRIORITY 20: TRYING =====
+        String[] tryingKeywords = {
+            "попробую", "постараюсь", "я тут", "я готов",
+            "запускаю", "открыл", "открываю", "лан"
+        };
+        rules.add(new ResponseRule("trying", 20,
+            anyOf(tryingKeywords),
+            (msg, l, s, n) -> pick("Жду", MINUTES[s.getRemainingMinutes()], "+", "Давай")
+        ));
+
+        // ===== PRIORITY 10: CATCHALL =====
+        rules.add(new ResponseRule("catchall", 10,
+            (msg, l) -> true,
+            (msg, l, s, n) -> {
+                if (s.messageCount <= 1) {
+                    return "Это проверка на читы, у Вас есть 7 мин. чтобы скинуть AnyDesk и пройти проверку! Признание уменьшает наказание!";
+                }
+                if (s.messageCount > 8 && !s.offeredConfession) {
+                    s.offeredConfession = true;
+                    return "Признание уменьшает наказание на 35%";
+                }
+                return pick("Аник жду", "Скачивай аник", "Жду анидеск", "Анидеск жду");
+            }
+        ));
+
+        // Sort by priority descending
+        rules.sort((a, b) -> Integer.compare(b.priority, a.priority));
+    }
+
+    // ======================== LANGUAGE PACKS ========================
+
+    // Rules that only make sense in some phases. Everything else, ban signals included, is scanned in every phase.
+    private static final Map<String, EnumSet<CheckPhase>> RULE_PHASES = new HashMap<>();
+
+    static {
+        // Nobody asks where to download AnyDesk once the code is in
+        EnumSet<CheckPhase> beforeCodes = EnumSet.of(CheckPhase.GREETING, CheckPhase.DOWNLOADING);
+        for (String category : new String[]{"greeting", "what_anydesk", "where_download", "no_anydesk", "downloading", "phone"}) {
+            RULE_PHASES.put(category, beforeCodes);
+        }
+        // Connection trouble and the AD1 plugin come up once AnyDesk is being installed
+        EnumSet<CheckPhase> afterGreeting = EnumSet.range(CheckPhase.DOWNLOADING, CheckPhase.DONE);
+        RULE_PHASES.put("connection", afterGreeting);
+        RULE_PHASES.put("plugin", afterGreeting);
+    }
+
+    private List<ResponseRule> rulesFor(Language language, CheckPhase phase) {
+        if (!language.hasPack()) return phaseRules.get(phase.ordinal());
+        List<List<ResponseRule>> merged = languageRules.get(language);
+        if (merged == null) {
+            // Reading a pack is a one-time cost of the language, not of the message that brought it
+            Budget budget = BUDGET.get();
+            budget.pause();
+            merged = languageRules.computeIfAbsent(language, l -> partition(buildLanguageRules(l)));
+            budget.resume();
+        }
+        return merged.get(phase.ordinal());
+    }
+
+    /**
+     * Split a priority-sorted rule list into one list per phase, keeping the order.
+     */
+    private static List<List<ResponseRule>> partition(List<ResponseRule> all) {
+        List<List<ResponseRule>> byPhase = new ArrayList<>(CheckPhase.COUNT);
+        for (int p = 0; p < CheckPhase.COUNT; p++) {
+            CheckPhase phase = CheckPhase.of(p);
+            List<ResponseRule> subset = new ArrayList<>();
+            for (ResponseRule rule : all) {
+                EnumSet<CheckPhase> phases = RULE_PHASES.get(rule.category);
+                if (phases == null || phases.contains(phase)) subset.add(rule);
+            }
+            byPhase.add(subset);
+        }
+        return byPhase;
+    }
+
+    /**
+     * Cyrillic-based languages merge the pack into every built-in rule by priority, pack rules winning
+     * ties, so Russian insults and confessions are never lost.
+     * English runs the pack first and falls back to the full built-in list when no pack rule matches,
+     * so Latin keywords of the Russian rules ("go w ds", "vse bani", "ad1") keep working without a
+     * list of which rules have them. The pack's catchall takes the place of the Russian one.
+     */
+    private List<ResponseRule> buildLanguageRules(Language language) {
+        List<ResponseRule> merged = new ArrayList<>();
+        ResponseRule packCatchall = null;
+        for (LanguagePack.Entry entry : language.getPack().getEntries()) {
+            ResponseRule rule = new ResponseRule(entry.category, entry.priority,
+                (msg, l) -> entry.matches(l),
+                (msg, l, s, n) -> entry.hasResponses() ? pick(entry.responsesFor(s.getRemainingMinutes())) : null
+            );
+            if (language == Language.EN && "catchall".equals(entry.category)) {
+                packCatchall = rule;
+            } else {
+                merged.add(rule);
+            }
+        }
+
+        if (language != Language.EN) {
+            merged.addAll(rules);
+            merged.sort((a, b) -> Integer.compare(b.priority, a.priority));
+            return merged;
+        }
+
+        merged.sort((a, b) -> Integer.compare(b.priority, a.priority));
+        for (ResponseRule rule : rules) {
+            merged.add(packCatchall != null && "catchall".equals(rule.category) ? packCatchall : rule);
+        }
+        return merged;
+    }
+
+    // ======================== MAIN METHOD ========================
+
+    /**
+     * Pick a reply for a player message, or null for a ban signal.
+     *
+     * With verbose logging off and no Flight Recorder session, the steady-state path
+     * (normalize, cached or scanned match, prebuilt reply) allocates nothing.
+     */
+    public String getResponse(String playerMessage, String playerName) {
+        return getResponse(playerMessage, players.idOf(playerName));
+    }
+
+    /**
+     * Same as {@link #getResponse(String, String)} for a player id from {@link #getPlayers()}.
+     */
+    public String getResponse(String playerMessage, int playerId) {
+        return getResponse(playerMessage, playerId, System.nanoTime());
+    }
+
+    /**
+     * Same as {@link #getResponse(String, int)}, with the evaluation budget counted from
+     * receivedNanos (System.nanoTime() when the chat line arrived), so the time spent parsing
+     * the line and normalizing the message is part of it.
+     */
+    public String getResponse(String playerMessage, int playerId, long receivedNanos) {
+        if (playerMessage == null) return null;
+        Budget budget = startBudget(receivedNanos);
+        playerMessage = clamp(playerMessage);
+
+        MessageText lower = TEXT_BUFFER.get().set(playerMessage);
+        if (lower.isEmpty()) return null;
+
+        // Events are only worth creating while a pipeline recording has them enabled
+        RuleEvaluationEvent event = null;
+        if (PipelineRecorder.isActive()) {
+            event = new RuleEvaluationEvent();
+            event.begin();
+        }
+
+        while (true) {
+            PlayerState state = playerStates.getOrCreate(playerId);
+            synchronized (state) {
+                // A clear or startCheck between lookup and lock replaced this state: retry on the current one
+                if (playerStates.get(playerId) == state) {
+                    return evaluate(playerMessage, lower, state, playerId, event, budget);
+                }
+            }
+        }
+    }
+
+    /**
+     * One reply to a burst of lines from the same player, e.g. "вот код" followed by the digits.
+     * Every line is matched and counted, but only the line matching the highest-priority rule is
+     * answered, so a ban signal or a code anywhere in the burst decides the reply. In hardened
+     * mode oversized lines are cut in place.
+     */
+    public String getResponse(String[] playerMessages, int count, int playerId) {
+        if (count == 1) return getResponse(playerMessages[0], playerId);
+        if (count == 0) return null;
+        // The whole burst shares one budget; once it is spent the remaining lines are not matched
+        Budget budget = startBudget(System.nanoTime());
+
+        RuleEvaluationEvent event = null;
+        if (PipelineRecorder.isActive()) {
+            event = new RuleEvaluationEvent();
+            event.begin();
+        }
+
+        while (true) {
+            PlayerState state = playerStates.getOrCreate(playerId);
+            synchronized (state) {
+                if (playerStates.get(playerId) == state) {
+                    return evaluateBurst(playerMessages, count, state, playerId, event, budget);
+                }
+            }
+        }
+    }
+
+    /**
+     * Priority of the rule that would answer this message now, without answering it: no responder
+     * runs and nothing is counted or cached. Integer.MIN_VALUE when nothing matches or the player
+     * has no check. BurstBuffer uses it to decide which line of an overflowing burst matters least.
+     */
+    public int peekPriority(String playerMessage, int playerId) {
+        if (playerMessage == null) return Integer.MIN_VALUE;
+        if (hardened && playerMessage.length() > MAX_MESSAGE_LENGTH) {
+            playerMessage = playerMessage.substring(0, MAX_MESSAGE_LENGTH);
+        }
+        MessageText lower = TEXT_BUFFER.get().set(playerMessage);
+        PlayerState state = playerStates.get(playerId);
+        if (lower.isEmpty() || state == null) return Integer.MIN_VALUE;
+
+        synchronized (state) {
+            for (ResponseRule rule : rulesFor(Language.detect(lower), state.phase)) {
+                try {
+                    if (rule.matcher.matches(playerMessage, lower, state, playerId)) return rule.priority;
+                } catch (Exception e) {
+                    // Logged when the line is evaluated for real
+                }
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * In hardened mode, cut a message down to MAX_MESSAGE_LENGTH. Allocates only for oversized input.
+     */
+    private String clamp(String message) {
+        if (!hardened || message.length() <= MAX_MESSAGE_LENGTH) return message;
+        truncated.increment();
+        return message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * Count, match and answer one message. Caller holds the state's monitor.
+     */
+    private String evaluate(String playerMessage, MessageText lower, PlayerState state, int playerId,
+                            RuleEvaluationEvent event, Budget budget) {
+        state.messageCount++;
+        state.lastMessageTime = System.currentTimeMillis();
+        phaseMessages.incrementAndGet(state.phase.ordinal());
+        return matchAndAnswer(playerMessage, lower, state, playerId, event, budget);
+    }
+
+    /**
+     * Match and answer a message already counted in the state and phase stats. Caller holds the state's monitor.
+     */
+    private String matchAndAnswer(String playerMessage, MessageText lower, PlayerState state, int playerId,
+                                  RuleEvaluationEvent event, Budget budget) {
+        CheckPhase phase = state.phase;
+
+        // Only the detected language's rules for the current phase are scanned
+        List<ResponseRule> rules = rulesFor(Language.detect(lower), phase);
+
+        // Index of the first state-free rule known to match this text, or -1. The language follows
+        // from the text and each phase has its own cache, so the index always refers to the same list.
+        RuleDecisionCache cache = decisionCaches[phase.ordinal()];
+        int cached = cache.get(lower);
+
+        // A responder that throws passes the message on to the next matching rule
+        int i = match(rules, 0, cache, cached, budget, playerMessage, lower, state, playerId, event);
+        while (i >= 0) {
+            ResponseRule rule = rules.get(i);
+            String response;
+            try {
+                response = respond(rule, playerMessage, lower, state, playerId);
+            } catch (Exception e) {
+                LOGGER.error("[AutoReply] Error in rule {}: {}",
+                    rule.category, e.getMessage());
+                // Without the cache hint: the hint only says which rule matches first, not which one
+                // matches next, and the fallback must not be cached as this text's decision
+                i = match(rules, i + 1, null, -1, budget, playerMessage, lower, state, playerId, event);
+                continue;
+            }
+            return answer(rule, response, playerMessage, 1, state, playerId, event);
+        }
+
+        if (i == OVER_BUDGET) return answerOverBudget(rules, playerMessage, lower, 1, state, playerId, event);
+        commitEvaluation(event, "", true);
+        return null;
+    }
+
+    /**
+     * Match every line of a burst, then answer only the line whose rule has the highest priority.
+     * Caller holds the state's monitor.
+     */
+    private String evaluateBurst(String[] messages, int count, PlayerState state, int playerId,
+                                 RuleEvaluationEvent event, Budget budget) {
+        MessageText lower = TEXT_BUFFER.get();
+        ResponseRule best = null;
+        int bestLine = -1;
+        List<ResponseRule> overBudgetRules = null;
+        int overBudgetLine = -1;
+
+        for (int m = 0; m < count; m++) {
+            String message = messages[m];
+            if (message == null) continue;
+            message = messages[m] = clamp(message);
+            if (lower.set(message).isEmpty()) continue;
+            state.messageCount++;
+            state.lastMessageTime = System.currentTimeMillis();
+            CheckPhase phase = state.phase;
+            phaseMessages.incrementAndGet(phase.ordinal());
+
+            // Lines of one burst may be in different languages, so priorities are compared, not indexes
+            List<ResponseRule> rules = rulesFor(Language.detect(lower), phase);
+            RuleDecisionCache cache = decisionCaches[phase.ordinal()];
+            int i = match(rules, 0, cache, cache.get(lower), budget, message, lower, state, playerId, event);
+            if (i == OVER_BUDGET) {
+                overBudgetRules = rules;
+                overBudgetLine = m;
+            }
+            // On a tie the later line wins, it is the player's latest word
+            if (i >= 0 && (best == null || rules.get(i).priority >= best.priority)) {
+                best = rules.get(i);
+                bestLine = m;
+            }
+        }
+
+        if (best == null) {
+            if (overBudgetRules != null) {
+                String message = messages[overBudgetLine];
+                lower.set(message);
+                return answerOverBudget(overBudgetRules, message, lower, count, state, playerId, event);
+            }
+            commitEvaluation(event, "", true);
+            return null;
+        }
+
+        String message = messages[bestLine];
+        lower.set(message);
+        String response;
+        try {
+            response = respond(best, message, lower, state, playerId);
+        } catch (Exception e) {
+            LOGGER.error("[AutoReply] Error in rule {}: {}",
+                best.category, e.getMessage());
+            // Answer the winning line the usual way, which falls through to the next matching rule.
+            // It was already counted with the rest of the burst.
+            return matchAndAnswer(message, lower, state, playerId, event, budget);
+        }
+        return answer(best, response, message, count, state, playerId, event);
+    }
+
+    /**
+     * Index of the first rule at or after {@code from} that matches, or -1. cached is the
+     * decision cache's answer for this text; a fresh state-free match is stored in the cache
+     * unless cache is null.
+     * Once the budget is spent the scan stops with OVER_BUDGET. It is checked before every rule,
+     * so the scan overshoots by at most one matcher, which the length cap keeps short.
+     */
+    private int match(List<ResponseRule> rules, int from, RuleDecisionCache cache, int cached, Budget budget,
+                      String msg, MessageText lower, PlayerState state, int playerId, RuleEvaluationEvent event) {
+        int skipped = 0;
+        for (int i = from; i < rules.size(); i++) {
+            if (budget.spent()) {
+                recordScan(state, event, i - from - skipped, cached >= 0);
+                return OVER_BUDGET;
+            }
+            ResponseRule rule = rules.get(i);
+            boolean matched;
+            if (cached >= 0 && rule.stateFree) {
+                // State-free rules before the cached one are known misses
+                matched = i == cached;
+                skipped++;
+            } else {
+                try {
+                    matched = rule.matcher.matches(msg, lower, state, playerId);
+                } catch (Exception e) {
+                    LOGGER.error("[AutoReply] Error in rule {}: {}",
+                        rule.category, e.getMessage());
+                    matched = false;
+                }
+            }
+
+            if (matched) {
+                if (cached >= 0) {
+                    cache.recordSaved(skipped);
+                } else if (rule.stateFree && cache != null) {
+                    cache.put(lower.toString(), i);
+                }
+                recordScan(state, event, i + 1 - from - skipped, cached >= 0);
+                return i;
+            }
+        }
+        recordScan(state, event, rules.size() - from - skipped, cached >= 0);
+        return -1;
+    }
+
+    private Budget startBudget(long receivedNanos) {
+        long limit = evaluationBudgetNanos;
+        return BUDGET.get().start(receivedNanos, hardened && limit > 0 ? limit : NO_BUDGET);
+    }
+
+    /**
+     * Thread CPU time left to the evaluation running on this thread. Time spent descheduled,
+     * stopped for GC or waiting for a state's monitor is not CPU time, so it never turns a normal
+     * message into catchall. The cheap wall clock is read before every rule and the CPU clock
+     * only once the wall time since the last look could have used up what is left.
+     */
+    private static final class Budget {
+        private long limit = NO_BUDGET;
+        private long cpuStart;
+        private long wallCheck;
+        private long pausedWall;
+        private long pausedCpu;
+
+        Budget start(long receivedNanos, long limit) {
+            this.limit = limit;
+            wallCheck = receivedNanos + limit;
+            if (limit != NO_BUDGET) {
+                // Wall time since arrival bounds the CPU time the parse took. Read first, so loading
+                // the CPU clock on the first budgeted message is not counted.
+                long parsed = System.nanoTime() - receivedNanos;
+                cpuStart = threadCpuNanos() - parsed;
+            }
+            return this;
+        }
+
+        boolean spent() {
+            long now = System.nanoTime();
+            if (now - wallCheck <= 0) return false;
+            long left = limit - (threadCpuNanos() - cpuStart);
+            if (left <= 0) return true;
+            wallCheck = now + left;
+            return false;
+        }
+
+        void pause() {
+            if (limit == NO_BUDGET) return;
+            pausedWall = System.nanoTime();
+            pausedCpu = threadCpuNanos();
+        }
+
+        void resume() {
+            if (limit == NO_BUDGET) return;
+            cpuStart += threadCpuNanos() - pausedCpu;
+            wallCheck += System.nanoTime() - pausedWall;
+        }
+    }
+
+    private static final ThreadLocal<Budget> BUDGET = ThreadLocal.withInitial(Budget::new);
+
+    /**
+     * CPU time of the calling thread in nanoseconds, wall time where the JVM cannot measure it.
+     */
+    static long threadCpuNanos() {
+        return CpuClock.now();
+    }
+
+    // Initialized by the first budgeted evaluation, so tools that run without a budget never load java.management
+    private static final class CpuClock {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final boolean SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+        static long now() {
+            return SUPPORTED ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+        }
+    }
+
+    /**
+     * The scan ran out of time: answer with the list's catchall, a pack's own catchall taking
+     * precedence over the built-in one. Caller holds the state's monitor.
+     */
+    private String answerOverBudget(List<ResponseRule> rules, String playerMessage, MessageText lower, int lines,
+                              PlayerState state, int playerId, RuleEvaluationEvent event) {
+        overBudget.increment();
+        if (event != null) event.overBudget = true;
+
+        int i = rules.size() - 1;
+        while (i > 0 && rules.get(i - 1).category.equals("catchall")) i--;
+        ResponseRule catchall = rules.get(i);
+        long now = System.nanoTime();
+        long last = lastOverBudgetWarn.get();
+        if (now - last >= OVER_BUDGET_WARN_INTERVAL_NANOS && lastOverBudgetWarn.compareAndSet(last, now)) {
+            LOGGER.warn("[AutoReply] Evaluation budget exceeded for {}, answering with {} ({} so far, more at debug)",
+                players.nameOf(playerId), catchall.category, overBudget.sum());
+        } else {
+            LOGGER.debug("[AutoReply] Evaluation budget exceeded for {}, answering with {}",
+                players.nameOf(playerId), catchall.category);
+        }
+
+        if (catchall.category.equals("catchall")) {
+            try {
+                String response = respond(catchall, playerMessage, lower, state, playerId);
+                return answer(catchall, response, playerMessage, lines, state, playerId, event);
+            } catch (Exception e) {
+                LOGGER.error("[AutoReply] Error in rule {}: {}", catchall.category, e.getMessage());
+            }
+        }
+        commitEvaluation(event, "", true);
+        return null;
+    }
+
+    private String answer(ResponseRule rule, String response, String playerMessage, int lines,
+                          PlayerState state, int playerId, RuleEvaluationEvent event) {
+        state.lastResponseCategory = rule.category;
+        advancePhase(state, playerId, rule.category);
+        commitEvaluation(event, rule.category, response == null);
+
+        if (response == null) {
+            if (verbose) {
+                LOGGER.info("[AutoReply] BAN signal for {} ({}): {}",
+                    players.nameOf(playerId), rule.category, playerMessage);
+            }
+            return null;
+        }
+
+        if (verbose) {
+            if (lines > 1) {
+                LOGGER.info("[AutoReply] [{}] {} (best of {} lines) -> {}",
+                    rule.category, playerMessage, lines, response);
+            } else {
+                LOGGER.info("[AutoReply] [{}] {} -> {}",
+                    rule.category, playerMessage, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Run the rule's responder, letting the bandit choose among variants until the player gives codes.
+     */
+    private String respond(ResponseRule rule, String msg, MessageText lower, PlayerState state, int playerId) {
+        ResponseBandit bandit = this.bandit;
+        if (bandit == null || state.gaveCodes) {
+            return rule.responder.respond(msg, lower, state, playerId);
+        }
+
+        Selection sel = SELECTION.get();
+        ResponseBandit.Pool pool = bandit.pool(rule.category);
+        sel.begin(bandit, pool);
+        String response;
+        try {
+            response = rule.responder.respond(msg, lower, state, playerId);
+        } finally {
+            sel.end();
+        }
+
+        if (state.gaveCodes) {
+            // This message carried the codes: credit what was sent before it
+            bandit.settle(state, true, state.lastMessageTime);
+        } else if (response != null && response == sel.chosen) {
+            bandit.sent(state, pool, response, state.lastMessageTime);
+        }
+        return response;
+    }
+
+    private void advancePhase(PlayerState state, int playerId, String category) {
+        CheckPhase from = state.phase;
+        CheckPhase to = from.after(state, category);
+        if (to == from) return;
+        state.phase = to;
+        phaseTransitions.incrementAndGet(from.ordinal() * CheckPhase.COUNT + to.ordinal());
+        if (verbose) {
+            LOGGER.info("[AutoReply] {}: {} -> {} ({})", players.nameOf(playerId), from, to, category);
+        }
+    }
+
+    private void recordScan(PlayerState state, RuleEvaluationEvent event, int rulesTried, boolean cacheHit) {
+        phaseRulesScanned.addAndGet(state.phase.ordinal(), rulesTried);
+        if (event == null) return;
+        event.rulesTried += rulesTried;
+        event.cacheHit = cacheHit;
+    }
+
+    private static void commitEvaluation(RuleEvaluationEvent event, String category, boolean banSignal) {
+        if (event == null || !event.shouldCommit()) return;
+        event.category = category;
+        event.banSignal = banSignal;
+        event.commit();
+    }
+
+    /**
+     * Hardened mode (on by default): messages are cut to MAX_MESSAGE_LENGTH and a message whose
+     * parse and scan take more thread CPU time than the evaluation budget is answered by catchall.
+     */
+    public void setHardened(boolean hardened) {
+        this.hardened = hardened;
+    }
+
+    public boolean isHardened() {
+        return hardened;
+    }
+
+    /**
+     * Thread CPU time allowed per message in hardened mode, 0 for none. Tools replaying a log turn
+     * it off so that the replies do not depend on how warm the JIT is.
+     */
+    public void setEvaluationBudgetNanos(long nanos) {
+        this.evaluationBudgetNanos = nanos;
+    }
+
+    public long getEvaluationBudgetNanos() {
+        return evaluationBudgetNanos;
+    }
+
+    /**
+     * Messages cut to MAX_MESSAGE_LENGTH.
+     */
+    public long getTruncated() {
+        return truncated.sum();
+    }
+
+    /**
+     * Messages answered by catchall because the scan ran out of time.
+     */
+    public long getOverBudget() {
+        return overBudget.sum();
+    }
+
+    /**
+     * Per-message info logging; headless tools switch it off.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Name to id interning shared with the chat handler, so a message hashes its sender once.
+     */
+    public PlayerRegistry getPlayers() {
+        return players;
+    }
+
+    public PlayerState getPlayerState(String playerName) {
+        int id = players.find(playerName);
+        return id == PlayerRegistry.UNKNOWN ? null : playerStates.get(id);
+    }
+
+    public PlayerState getPlayerState(int playerId) {
+        return playerStates.get(playerId);
+    }
+
+    public int getActivePlayers() {
+        return playerStates.size();
+    }
+
+    public RuleDecisionCache getDecisionCache(CheckPhase phase) {
+        return decisionCaches[phase.ordinal()];
+    }
+
+    // ======================== PHASE STATS ========================
+
+    /**
+     * Rules a message is checked against in the phase, built-in list without language packs.
+     */
+    public int getPhaseRuleCount(CheckPhase phase) {
+        return phaseRules.get(phase.ordinal()).size();
+    }
+
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    public long getPhaseMessages(CheckPhase phase) {
+        return phaseMessages.get(phase.ordinal());
+    }
+
+    /**
+     * Matchers run for messages evaluated in the phase; cache hits skip state-free rules.
+     */
+    public long getPhaseRulesScanned(CheckPhase phase) {
+        return phaseRulesScanned.get(phase.ordinal());
+    }
+
+    public long getPhaseTransitions(CheckPhase from, CheckPhase to) {
+        return phaseTransitions.get(from.ordinal() * CheckPhase.COUNT + to.ordinal());
+    }
+
+    public ResponseBandit getBandit() {
+        return bandit;
+    }
+
+    /**
+     * Attach a bandit so pick() learns which variants get codes, or null for uniform picks.
+     */
+    public void setBandit(ResponseBandit bandit) {
+        this.bandit = bandit;
+    }
+
+    /**
+     * Begin a fresh check now, so the 7-minute window starts at the announcement
+     * rather than at the player's first message.
+     */
+    public void startCheck(int playerId) {
+        settleMissed(playerStates.put(playerId, new PlayerState()));
+    }
+
+    public void clearPlayerState(int playerId) {
+        settleMissed(playerStates.remove(playerId));
+    }
+
+    /**
+     * Forget every check, as on /ai stop or /ai clear. Variants still waiting for codes are
+     * dropped unscored: the checks were cut short by the operator, not lost by the reply.
+     * ChatHandler drops the replies not sent yet at the same time, so a discarded variant is
+     * never shown afterwards either.
+     */
+    public void clearAllStates() {
+        ResponseBandit bandit = this.bandit;
+        if (bandit != null) {
+            for (int id = 0; id < players.size(); id++) {
+                PlayerState state = playerStates.get(id);
+                if (state != null) bandit.discard(state);
+            }
+        }
+        playerStates.clear();
+    }
+
+    // A check that ends before codes is a miss for every variant still waiting
+    private void settleMissed(PlayerState state) {
+        ResponseBandit bandit = this.bandit;
+        if (bandit != null && state != null) {
+            bandit.settle(state, false, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.holyworld.autoreply.ai;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache from normalized message text to the index of the first state-free rule that matched it.
+ * Check conversations repeat the same short lines ("+", "жди", "что дальше") over and over,
+ * so most lookups hit and skip the rule scan.
+ *
+ * Eviction uses the CLOCK algorithm (second chance), keys are located through an
+ * open-addressing index table with linear probing.
+ */
+public class RuleDecisionCache {
+
+    public static final int MISSING = -1;
+
+    // Long lines almost never repeat, keep them out of the cache
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final int capacity;
+    private final String[] keys;
+    private final int[] hashes;
+    private final int[] values;
+    private final boolean[] referenced;
+    private int size = 0;
+    private int hand = 0;
+
+    // slot + 1, 0 = empty
+    private final int[] table;
+    private final int mask;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long savedEvaluations = 0;
+
+    public RuleDecisionCache(int capacity) {
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.values = new int[capacity];
+        this.referenced = new boolean[capacity];
+
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    // ======================== LOOKUP ========================
+
+    public synchronized int get(MessageText key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            misses++;
+            return MISSING;
+        }
+        int slot = findSlot(key, mix(key.hash()));
+        if (slot < 0) {
+            misses++;
+            return MISSING;
+        }
+        hits++;
+        referenced[slot] = true;
+        return values[slot];
+    }
+
+    public synchronized void put(String key, int value) {
+        if (key.length() > MAX_KEY_LENGTH) return;
+
+        int hash = mix(key.hashCode());
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            values[slot] = value;
+            referenced[slot] = true;
+            return;
+        }
+
+        if (size < capacity) {
+            slot = size++;
+        } else {
+            slot = evict();
+        }
+
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        referenced[slot] = false;
+
+        int i = hash & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * Record how many rule evaluations a cache hit made unnecessary.
+     */
+    public synchronized void recordSaved(int evaluations) {
+        savedEvaluations += evaluations;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(referenced, false);
+        Arrays.fill(table, 0);
+        size = 0;
+        hand = 0;
+    }
+
+    // ======================== STATS ========================
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getSavedEvaluations() {
+        return savedEvaluations;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // ======================== INTERNALS ========================
+
+    private int findSlot(String key, int hash) {
+        int i = hash & mask;
+        int entry;
+        while ((entry = table[i]) != 0) {
+            int slot = entry - 1;
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return slot;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int findSlot(MessageText key, int hash) {
+        int i = hash & mask;
+        int entry;
+        while ((entry = table[i]) != 0) {
+            int slot = entry - 1;
+            if (hashes[slot] == hash && key.is(keys[slot])) {
+                return slot;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * CLOCK sweep: give referenced entries a second chance, evict the first unreferenced one.
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int victim = hand;
+        hand = (hand + 1) % capacity;
+        removeFromTable(victim);
+        keys[victim] = null;
+        return victim;
+    }
+
+    /**
+     * Backward-shift deletion so probe chains stay intact without tombstones.
+     */
+    private void removeFromTable(int slot) {
+        int i = hashes[slot] & mask;
+        while (table[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int entry = table[j];
+            if (entry == 0) break;
+
+            int home = hashes[entry - 1] & mask;
+            // Move the entry back if its home position is not in (i, j]
+            boolean movable = (j > i) ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                table[i] = entry;
+                i = j;
+            }
+        }
+        table[i] = 0;
+    }
+
+    private static int mix(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+}
@@ -0,0 +1,22 @@
+package com.holyworld.autoreply.monitor;
+
+import jdk.jfr.*;
+
+/**
+ * Extraction of player name and text from a [CHECK] line.
+ */
+@Name("holyworld.autoreply.CheckParse")
+@Label("Check Parse")
+@Category({"HolyWorld AutoReply", "Pipeline"})
+@Description("Parsing of a [CHECK] chat line into player name and message")
+@Enabled(false)
+@StackTrace(false)
+public class CheckParseEvent extends Event {
+
+    @Label("Pattern")
+    @Description("colored, clean, partial, manual or none")
+    public String pattern;
+
+    @Label("Player")
+    public String player;
+}
@@ -0,0 +1,22 @@
+package com.holyworld.autoreply.monitor;
+
+import jdk.jfr.*;
+
+/**
+ * Chat line handled by the ChatHandler listener, spans the whole processMessage call.
+ */
+@Name("holyworld.autoreply.MessageReceived")
+@Label("Message Received")
+@Category({"HolyWorld AutoReply", "Pipeline"})
+@Description("Game chat line received and processed by the auto reply listener")
+@Enabled(false)
+@StackTrace(false)
+public class MessageReceivedEvent extends Event {
+
+    @Label("Length")
+    public int length;
+
+    @Label("System Line")
+    @Description("Line matched a registered system marker such as [CHECK]")
+    public boolean systemLine;
+}
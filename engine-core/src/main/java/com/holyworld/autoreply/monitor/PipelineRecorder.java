@@ -0,0 +1,68 @@
+package com.holyworld.autoreply.monitor;
+
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Controls a Flight Recorder recording of the auto reply pipeline events.
+ * All events are disabled by default and cost nothing until a recording enables them.
+ */
+public class PipelineRecorder {
+
+    private static Recording recording;
+    private static Path destination;
+    // Read for every evaluated message: a plain flag, so callers that never record never load jdk.jfr
+    private static volatile boolean active;
+
+    public static synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Same as {@link #isRecording()}, without the lock. Cheap enough to decide per message whether
+     * an event is worth creating.
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    public static synchronized void start(Path file) throws IOException {
+        if (recording != null) {
+            throw new IllegalStateException("Recording already running: " + destination);
+        }
+        Recording r = new Recording();
+        r.setName("HolyWorldAutoReply");
+        r.enable(MessageReceivedEvent.class);
+        r.enable(CheckParseEvent.class);
+        r.enable(RuleEvaluationEvent.class);
+        r.enable(ReplyScheduledEvent.class);
+        r.enable(ReplySentEvent.class);
+        r.setDestination(file);
+        r.start();
+
+        recording = r;
+        destination = file;
+        active = true;
+    }
+
+    /**
+     * Stop the running recording and return the .jfr file it was written to.
+     */
+    public static synchronized Path stop() {
+        if (recording == null) {
+            throw new IllegalStateException("No recording running");
+        }
+        Path file = destination;
+        active = false;
+        try {
+            recording.stop();
+        } finally {
+            recording.close();
+            recording = null;
+            destination = null;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,21 @@
+package com.holyworld.autoreply.monitor;
+
+import jdk.jfr.*;
+
+/**
+ * Reply handed to the scheduler with its randomized delay.
+ */
+@Name("holyworld.autoreply.ReplyScheduled")
+@Label("Reply Scheduled")
+@Category({"HolyWorld AutoReply", "Pipeline"})
+@Enabled(false)
+@StackTrace(false)
+public class ReplyScheduledEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Planned Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long plannedDelay;
+}
@@ -0,0 +1,26 @@
+package com.holyworld.autoreply.monitor;
+
+import jdk.jfr.*;
+
+/**
+ * Reply command actually sent on the client thread.
+ */
+@Name("holyworld.autoreply.ReplySent")
+@Label("Reply Sent")
+@Category({"HolyWorld AutoReply", "Pipeline"})
+@Enabled(false)
+@StackTrace(false)
+public class ReplySentEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Planned Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long plannedDelay;
+
+    @Label("Actual Delay")
+    @Description("Time from evaluation to the command leaving the client")
+    @Timespan(Timespan.MILLISECONDS)
+    public long actualDelay;
+}
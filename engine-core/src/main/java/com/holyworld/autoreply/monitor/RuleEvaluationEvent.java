@@ -0,0 +1,32 @@
+package com.holyworld.autoreply.monitor;
+
+import jdk.jfr.*;
+
+/**
+ * One ResponseEngine.getResponse call.
+ */
+@Name("holyworld.autoreply.RuleEvaluation")
+@Label("Rule Evaluation")
+@Category({"HolyWorld AutoReply", "Pipeline"})
+@Description("Rule scan for a single player message")
+@Enabled(false)
+@StackTrace(false)
+public class RuleEvaluationEvent extends Event {
+
+    @Label("Category")
+    public String category;
+
+    @Label("Rules Tried")
+    @Description("Matchers actually evaluated")
+    public int rulesTried;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Ban Signal")
+    public boolean banSignal;
+
+    @Label("Over Budget")
+    @Description("Scan ran out of time and catchall answered")
+    public boolean overBudget;
+}
@@ -0,0 +1,52 @@
+package com.holyworld.autoreply.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Latin text is answered by the English pack, but Latin keywords of the built-in Russian rules must
+ * still reach their rule. Each message is the first of a fresh check.
+ */
+class LanguageFallbackTest {
+
+    private static final String[][] BUILT_IN = {
+        {"go w ds", "discord"},
+        {"go cheres ds", "discord"},
+        {"vse bani", "translit"},
+        {"i skacat ne mogy", "translit"},
+        {"bb", "leave"},
+        {"bb all", "leave"},
+        {"qq", "greeting"},
+        {"rudesk", "rudesk"},
+        {"rustdesk", "rustdesk"},
+        {"vpn", "vpn"},
+        {"da", "yes"},
+        {"ladno", "yes"},
+        {"go", "short"},
+        {"xd", "emotional"},
+        {"nais", "emotional"}
+    };
+
+    @Test
+    void latinKeywordsOfBuiltInRulesStillFire() {
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        for (int i = 0; i < BUILT_IN.length; i++) {
+            String player = "Latin" + i;
+            engine.getResponse(BUILT_IN[i][0], player);
+            assertEquals(BUILT_IN[i][1], engine.getPlayerState(player).lastResponseCategory, BUILT_IN[i][0]);
+        }
+    }
+
+    @Test
+    void unknownLatinTextGetsTheEnglishCatchall() {
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        String response = engine.getResponse("asdf qwer", "Latin");
+        assertEquals("catchall", engine.getPlayerState("Latin").lastResponseCategory);
+        assertFalse(response.chars().anyMatch(c -> Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CYRILLIC),
+            response);
+    }
+}
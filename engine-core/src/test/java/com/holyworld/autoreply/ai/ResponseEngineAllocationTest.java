@@ -0,0 +1,65 @@
+package com.holyworld.autoreply.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The steady-state evaluation path must not allocate.
+ *
+ * Runs a fixed set of typical check messages through a fresh engine, first to warm up the JIT
+ * and fill the decision cache, then measured with the per-thread allocation counter. A measured
+ * pass can still catch a late compilation or deoptimization, so the best of a few passes counts.
+ */
+class ResponseEngineAllocationTest {
+
+    private static final String[] MESSAGES = {
+        "+", "жди", "скачиваю", "что дальше", "за что", "ок", "??", "ало",
+        "сколько времени", "не работает", "рудеск можно?", "я не читер",
+        "123 456 789", "спс", "hello", "why", "скільки часу", "абырвалг"
+    };
+
+    private static final String[] PLAYERS = {"ProbeA", "ProbeB", "ProbeC"};
+
+    private static final int WARMUP_ROUNDS = 5000;
+    private static final int MEASURED_ROUNDS = 1000;
+    private static final int PASSES = 5;
+
+    @Test
+    void warmEvaluationAllocatesNothing() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "JVM has no per-thread allocation counter");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "JVM has no per-thread allocation counter");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        ResponseEngine engine = new ResponseEngine();
+        engine.setVerbose(false);
+        int[] ids = new int[PLAYERS.length];
+        for (int i = 0; i < PLAYERS.length; i++) {
+            ids[i] = engine.getPlayers().idOf(PLAYERS[i]);
+        }
+        run(engine, ids, WARMUP_ROUNDS);
+
+        long threadId = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES && best > 0; pass++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            run(engine, ids, MEASURED_ROUNDS);
+            best = Math.min(best, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        assertEquals(0, best, "bytes allocated by " + MEASURED_ROUNDS * MESSAGES.length + " warm evaluations");
+    }
+
+    private static void run(ResponseEngine engine, int[] ids, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < MESSAGES.length; i++) {
+                engine.getResponse(MESSAGES[i], ids[i % ids.length]);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.holyworld.autoreply;
 
+import com.holyworld.autoreply.ai.EngineWarmup;
 import com.holyworld.autoreply.command.AICommand;
 import com.holyworld.autoreply.handler.ChatHandler;
 import net.fabricmc.api.ClientModInitializer;
@@ -10,7 +11,8 @@ public class HolyWorldAutoReply implements ClientModInitializer {
     public static final String MOD_ID = "holyworld-autoreply";
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
-    private static boolean enabled = false;
+    // Read from the chat, tick and scheduler threads
+    private static volatile boolean enabled = false;
     private static ChatHandler chatHandler;
 
     @Override
@@ -18,6 +20,8 @@ public class HolyWorldAutoReply implements ClientModInitializer {
         LOGGER.info("[HolyWorldAutoReply] Initializing mod for Fabric 1.20.1...");
         chatHandler = new ChatHandler();
         AICommand.register();
+        // Compile the parse/match path before the first real [CHECK] arrives
+        EngineWarmup.startInBackground();
         LOGGER.info("[HolyWorldAutoReply] Mod loaded! Use /ai start to enable.");
     }
 
@@ -28,7 +32,7 @@ public class HolyWorldAutoReply implements ClientModInitializer {
     public static void setEnabled(boolean state) {
         enabled = state;
         if (chatHandler != null && !state) {
-            chatHandler.getResponseEngine().clearAllStates();
+            chatHandler.clearAllStates();
         }
     }
 
@@ -1,12 +1,36 @@
 package com.holyworld.autoreply.command;
 
 import com.holyworld.autoreply.HolyWorldAutoReply;
+import com.holyworld.autoreply.ai.CheckPhase;
+import com.holyworld.autoreply.ai.ResponseBandit;
+import com.holyworld.autoreply.ai.ResponseEngine;
+import com.holyworld.autoreply.ai.RuleDecisionCache;
+import com.holyworld.autoreply.handler.BurstBuffer;
+import com.holyworld.autoreply.handler.ChatHandler;
+import com.holyworld.autoreply.handler.FloodFilter;
+import com.holyworld.autoreply.handler.SendQueue;
+import com.holyworld.autoreply.monitor.PipelineRecorder;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.text.Text;
 
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class AICommand {
 
+    // Categories listed by /ai bandit, most sent first
+    private static final int BANDIT_LINES = 10;
+
     public static void register() {
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> {
             dispatcher.register(
@@ -38,13 +62,242 @@ public class AICommand {
                             context.getSource().sendFeedback(
                                 Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eStatus: " + status)
                             );
+                            if (HolyWorldAutoReply.getChatHandler() != null) {
+                                FloodFilter flood = HolyWorldAutoReply.getChatHandler().getFloodFilter();
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eDuplicates suppressed: \u00a7f"
+                                        + flood.getExactDuplicates() + " \u00a7eexact, \u00a7f"
+                                        + flood.getNearDuplicates() + " \u00a7enear")
+                                );
+                                BurstBuffer bursts = HolyWorldAutoReply.getChatHandler().getBursts();
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eCooldown lines coalesced: \u00a7f"
+                                        + bursts.getCoalescedLines() + " \u00a7ein \u00a7f" + bursts.getFlushed() + " \u00a7ereplies")
+                                );
+                            }
+                            return 1;
+                        })
+                    )
+                    .then(ClientCommandManager.literal("cache")
+                        .executes(context -> {
+                            if (HolyWorldAutoReply.getChatHandler() == null) return 0;
+                            ResponseEngine engine = HolyWorldAutoReply.getChatHandler().getResponseEngine();
+                            // One cache per check phase
+                            for (CheckPhase phase : CheckPhase.values()) {
+                                RuleDecisionCache cache = engine.getDecisionCache(phase);
+                                context.getSource().sendFeedback(
+                                    Text.literal(String.format("\u00a7b\u00a7l[AutoReply] \u00a7e%s: \u00a7f%d/%d \u00a7ehit rate: \u00a7f%.1f%% \u00a7e(%d/%d) saved evaluations: \u00a7f%d",
+                                        phase, cache.size(), cache.capacity(), cache.getHitRate() * 100,
+                                        cache.getHits(), cache.getHits() + cache.getMisses(), cache.getSavedEvaluations()))
+                                );
+                            }
+                            return 1;
+                        })
+                    )
+                    .then(ClientCommandManager.literal("phases")
+                        .executes(context -> {
+                            if (HolyWorldAutoReply.getChatHandler() == null) return 0;
+                            ResponseEngine engine = HolyWorldAutoReply.getChatHandler().getResponseEngine();
+                            for (CheckPhase phase : CheckPhase.values()) {
+                                long messages = engine.getPhaseMessages(phase);
+                                double scanned = messages == 0 ? 0 : (double) engine.getPhaseRulesScanned(phase) / messages;
+                                context.getSource().sendFeedback(
+                                    Text.literal(String.format("\u00a7b\u00a7l[AutoReply] \u00a7e%s: \u00a7f%d \u00a7emessages, \u00a7f%.1f \u00a7erules scanned each, \u00a7f%d/%d \u00a7erules",
+                                        phase, messages, scanned, engine.getPhaseRuleCount(phase), engine.getRuleCount()))
+                                );
+                            }
+                            for (CheckPhase from : CheckPhase.values()) {
+                                for (CheckPhase to : CheckPhase.values()) {
+                                    long n = engine.getPhaseTransitions(from, to);
+                                    if (n == 0) continue;
+                                    context.getSource().sendFeedback(
+                                        Text.literal("\u00a77  " + from + " -> " + to + ": \u00a7f" + n)
+                                    );
+                                }
+                            }
+                            return 1;
+                        })
+                    )
+                    .then(ClientCommandManager.literal("hardened")
+                        .executes(context -> {
+                            ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+                            if (handler == null) return 0;
+                            ResponseEngine engine = handler.getResponseEngine();
+                            context.getSource().sendFeedback(
+                                Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eHardened: " + (engine.isHardened() ? "\u00a7aon" : "\u00a7coff")
+                                    + String.format(" \u00a7e(budget %.1f ms CPU, max %d chars)",
+                                        engine.getEvaluationBudgetNanos() / 1e6, ResponseEngine.MAX_MESSAGE_LENGTH))
+                            );
+                            context.getSource().sendFeedback(
+                                Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eOversized lines dropped: \u00a7f" + handler.getOversizedLines()
+                                    + " \u00a7etruncated: \u00a7f" + engine.getTruncated()
+                                    + " \u00a7eover budget: \u00a7f" + engine.getOverBudget())
+                            );
+                            return 1;
+                        })
+                        .then(ClientCommandManager.literal("on")
+                            .executes(context -> setHardened(context.getSource(), true))
+                        )
+                        .then(ClientCommandManager.literal("off")
+                            .executes(context -> setHardened(context.getSource(), false))
+                        )
+                    )
+                    .then(ClientCommandManager.literal("send")
+                        .executes(context -> {
+                            if (HolyWorldAutoReply.getChatHandler() == null) return 0;
+                            SendQueue queue = HolyWorldAutoReply.getChatHandler().getSendQueue();
+                            context.getSource().sendFeedback(
+                                Text.literal(String.format("\u00a7b\u00a7l[AutoReply] \u00a7eSent: \u00a7f%d/%d \u00a7equeued: \u00a7f%d \u00a7e(max %d) lost offline: \u00a7f%d \u00a7eblocked ticks: \u00a7f%d",
+                                    queue.getSent(), queue.getQueued(), queue.getDepth(), queue.getMaxDepth(),
+                                    queue.getExpired(), queue.getBlockedTicks()))
+                            );
+                            context.getSource().sendFeedback(
+                                Text.literal(String.format("\u00a7b\u00a7l[AutoReply] \u00a7eQueue wait: \u00a7f%.1f ms \u00a7e(max %d) drain: \u00a7f%.1f us/tick \u00a7e(up to %d per tick)",
+                                    queue.getAverageWaitMillis(), queue.getMaxWaitMillis(),
+                                    queue.getAverageDrainMicros(), SendQueue.MAX_SENDS_PER_TICK))
+                            );
+                            return 1;
+                        })
+                    )
+                    .then(ClientCommandManager.literal("record")
+                        .then(ClientCommandManager.literal("start")
+                            .executes(context -> {
+                                String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+                                Path file = FabricLoader.getInstance().getGameDir().resolve("autoreply-" + stamp + ".jfr");
+                                try {
+                                    PipelineRecorder.start(file);
+                                } catch (Exception e) {
+                                    context.getSource().sendError(
+                                        Text.literal("[AutoReply] Recording failed: " + e.getMessage())
+                                    );
+                                    return 0;
+                                }
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eJFR recording started: \u00a7f" + file.getFileName())
+                                );
+                                HolyWorldAutoReply.LOGGER.info("[AutoReply] JFR recording started: {}", file);
+                                return 1;
+                            })
+                        )
+                        .then(ClientCommandManager.literal("stop")
+                            .executes(context -> {
+                                Path file;
+                                try {
+                                    file = PipelineRecorder.stop();
+                                } catch (Exception e) {
+                                    context.getSource().sendError(
+                                        Text.literal("[AutoReply] " + e.getMessage())
+                                    );
+                                    return 0;
+                                }
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eJFR recording saved: \u00a7f" + file)
+                                );
+                                HolyWorldAutoReply.LOGGER.info("[AutoReply] JFR recording saved: {}", file);
+                                return 1;
+                            })
+                        )
+                    )
+                    .then(ClientCommandManager.literal("remind")
+                        .executes(context -> {
+                            ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+                            if (handler == null) return 0;
+                            context.getSource().sendFeedback(
+                                Text.literal("\u00a7e\u00a7l[AutoReply] \u00a7fReminders at: \u00a7a"
+                                    + formatMarks(handler.getReminderMarks()) + " \u00a7fmin left")
+                            );
+                            return 1;
+                        })
+                        .then(ClientCommandManager.argument("marks", StringArgumentType.greedyString())
+                            .executes(context -> {
+                                ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+                                if (handler == null) return 0;
+                                int[] marks = parseMarks(StringArgumentType.getString(context, "marks"));
+                                if (marks == null) {
+                                    context.getSource().sendFeedback(
+                                        Text.literal("\u00a7c\u00a7l[AutoReply] \u00a7fUse minutes 1-"
+                                            + (ResponseEngine.PlayerState.CHECK_MINUTES - 1) + ", e.g. \u00a7e/ai remind 3 1")
+                                    );
+                                    return 0;
+                                }
+                                handler.setReminderMarks(marks);
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7a\u00a7l[AutoReply] \u00a7fReminders set: \u00a7a"
+                                        + formatMarks(marks) + " \u00a7fmin left")
+                                );
+                                return 1;
+                            })
+                        )
+                    )
+                    .then(ClientCommandManager.literal("bandit")
+                        .executes(context -> {
+                            ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+                            if (handler == null) return 0;
+                            Map<String, int[]> byCategory = new LinkedHashMap<>();
+                            for (ResponseBandit.ArmStats arm : handler.getBandit().snapshot()) {
+                                if (arm.trials() == 0) continue;
+                                int[] totals = byCategory.computeIfAbsent(arm.category, c -> new int[2]);
+                                totals[0] += arm.codes;
+                                totals[1] += arm.trials();
+                            }
+                            context.getSource().sendFeedback(
+                                Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eReply stats (codes/sent), \u00a7f/ai bandit <category>\u00a7e for variants:")
+                            );
+                            if (byCategory.isEmpty()) {
+                                context.getSource().sendFeedback(Text.literal("\u00a77  nothing scored yet"));
+                            }
+                            byCategory.entrySet().stream()
+                                .sorted(Comparator.comparingInt((Map.Entry<String, int[]> e) -> e.getValue()[1]).reversed())
+                                .limit(BANDIT_LINES)
+                                .forEach(e -> context.getSource().sendFeedback(
+                                    Text.literal("\u00a7e  " + e.getKey() + ": \u00a7f" + e.getValue()[0] + "/" + e.getValue()[1])
+                                ));
                             return 1;
                         })
+                        .then(ClientCommandManager.literal("reset")
+                            .executes(context -> {
+                                ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+                                if (handler == null) return 0;
+                                handler.getBandit().reset();
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7e\u00a7l[AutoReply] \u00a7fReply stats reset")
+                                );
+                                return 1;
+                            })
+                        )
+                        .then(ClientCommandManager.argument("category", StringArgumentType.word())
+                            .executes(context -> {
+                                ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+                                if (handler == null) return 0;
+                                String category = StringArgumentType.getString(context, "category");
+                                List<ResponseBandit.ArmStats> arms = new ArrayList<>();
+                                for (ResponseBandit.ArmStats arm : handler.getBandit().snapshot()) {
+                                    if (arm.category.equals(category)) arms.add(arm);
+                                }
+                                if (arms.isEmpty()) {
+                                    context.getSource().sendFeedback(
+                                        Text.literal("\u00a7c\u00a7l[AutoReply] \u00a7fNo variants seen for \u00a7e" + category)
+                                    );
+                                    return 0;
+                                }
+                                arms.sort(Comparator.comparingDouble(ResponseBandit.ArmStats::mean).reversed());
+                                context.getSource().sendFeedback(
+                                    Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7e" + category + " \u00a7f(code rate, codes/sent):")
+                                );
+                                for (ResponseBandit.ArmStats arm : arms) {
+                                    context.getSource().sendFeedback(
+                                        Text.literal(String.format("\u00a7a  %.0f%% \u00a7f%d/%d \u00a77%s",
+                                            arm.mean() * 100, arm.codes, arm.trials(), arm.variant))
+                                    );
+                                }
+                                return 1;
+                            })
+                        )
                     )
                     .then(ClientCommandManager.literal("clear")
                         .executes(context -> {
                             if (HolyWorldAutoReply.getChatHandler() != null) {
-                                HolyWorldAutoReply.getChatHandler().getResponseEngine().clearAllStates();
+                                HolyWorldAutoReply.getChatHandler().clearAllStates();
                             }
                             context.getSource().sendFeedback(
                                 Text.literal("\u00a7e\u00a7l[AutoReply] \u00a7fAll player states cleared!")
@@ -55,4 +308,41 @@ public class AICommand {
             );
         });
     }
+
+    private static int setHardened(FabricClientCommandSource source, boolean hardened) {
+        ChatHandler handler = HolyWorldAutoReply.getChatHandler();
+        if (handler == null) return 0;
+        handler.getResponseEngine().setHardened(hardened);
+        source.sendFeedback(
+            Text.literal("\u00a7b\u00a7l[AutoReply] \u00a7eHardened: " + (hardened ? "\u00a7aon" : "\u00a7coff"))
+        );
+        return 1;
+    }
+
+    // "3 1" or "3,1" -> {3, 1}; "off" -> no reminders; null if invalid
+    private static int[] parseMarks(String input) {
+        String trimmed = input.trim();
+        if (trimmed.equalsIgnoreCase("off")) return new int[0];
+        String[] parts = trimmed.split("[\\s,]+");
+        int[] marks = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                marks[i] = Integer.parseInt(parts[i]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (marks[i] < 1 || marks[i] >= ResponseEngine.PlayerState.CHECK_MINUTES) return null;
+        }
+        return marks;
+    }
+
+    private static String formatMarks(int[] marks) {
+        if (marks.length == 0) return "off";
+        StringBuilder sb = new StringBuilder();
+        for (int mark : marks) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(mark);
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,141 @@
+package com.holyworld.autoreply.handler;
+
+import com.holyworld.autoreply.ai.PlayerTable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lines a player sends while their reply cooldown runs ("вот код", then the digits).
+ *
+ * Instead of being dropped they are held here until the cooldown ends and then answered
+ * with one reply by ResponseEngine.getResponse(String[], int, int). While a burst is open
+ * every further line joins it, so replies never overtake each other.
+ *
+ * A burst holds MAX_LINES lines. Past that the line whose rule ranks lowest is dropped, so the
+ * code or the ban signal survives any amount of "??" spam. Lines are only ranked once a burst
+ * overflows; an ordinary burst still costs one evaluation.
+ */
+public class BurstBuffer {
+
+    public static final int MAX_LINES = 8;
+
+    /**
+     * Priority of the rule that would answer the line now, higher matters more.
+     */
+    @FunctionalInterface
+    public interface LineRanker {
+        int priorityOf(int playerId, String line);
+    }
+
+    private final LineRanker ranker;
+    private final PlayerTable<Burst> bursts = new PlayerTable<>(Burst::new);
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder coalescedLines = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    private static class Burst {
+        final String[] lines = new String[MAX_LINES];
+        // Rule priority of each line, filled in when the burst first overflows
+        final int[] priorities = new int[MAX_LINES];
+        int size = 0;
+        boolean ranked = false;
+    }
+
+    public BurstBuffer(LineRanker ranker) {
+        this.ranker = ranker;
+    }
+
+    /**
+     * Add a line to the player's burst. Returns true when it opened the burst, in which case
+     * the caller schedules the flush. A full burst drops its lowest-ranked line, the oldest of
+     * equals, or the new line itself when it ranks below all of them.
+     */
+    public boolean add(int playerId, String line) {
+        Burst burst = bursts.getOrCreate(playerId);
+        synchronized (burst) {
+            if (burst.size < MAX_LINES) {
+                burst.lines[burst.size++] = line;
+                return burst.size == 1;
+            }
+
+            overflowed.increment();
+            if (!burst.ranked) {
+                for (int i = 0; i < MAX_LINES; i++) {
+                    burst.priorities[i] = ranker.priorityOf(playerId, burst.lines[i]);
+                }
+                burst.ranked = true;
+            }
+            int priority = ranker.priorityOf(playerId, line);
+            int victim = 0;
+            for (int i = 1; i < MAX_LINES; i++) {
+                if (burst.priorities[i] < burst.priorities[victim]) victim = i;
+            }
+            if (priority < burst.priorities[victim]) return false;
+
+            System.arraycopy(burst.lines, victim + 1, burst.lines, victim, MAX_LINES - 1 - victim);
+            System.arraycopy(burst.priorities, victim + 1, burst.priorities, victim, MAX_LINES - 1 - victim);
+            burst.lines[MAX_LINES - 1] = line;
+            burst.priorities[MAX_LINES - 1] = priority;
+            return false;
+        }
+    }
+
+    public boolean isOpen(int playerId) {
+        Burst burst = bursts.get(playerId);
+        if (burst == null) return false;
+        synchronized (burst) {
+            return burst.size > 0;
+        }
+    }
+
+    /**
+     * Move the player's lines into dest (at least MAX_LINES long) and close the burst.
+     * Returns the number of lines, 0 if the burst was cleared in the meantime.
+     */
+    public int drain(int playerId, String[] dest) {
+        Burst burst = bursts.get(playerId);
+        if (burst == null) return 0;
+        synchronized (burst) {
+            int count = burst.size;
+            System.arraycopy(burst.lines, 0, dest, 0, count);
+            Arrays.fill(burst.lines, 0, count, null);
+            burst.size = 0;
+            burst.ranked = false;
+            if (count > 0) {
+                flushed.increment();
+                coalescedLines.add(count);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Bursts answered so far.
+     */
+    public long getFlushed() {
+        return flushed.sum();
+    }
+
+    /**
+     * Lines that arrived during a cooldown and were answered as part of a burst.
+     */
+    public long getCoalescedLines() {
+        return coalescedLines.sum();
+    }
+
+    /**
+     * Lines dropped from full bursts, always the lowest-ranked.
+     */
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+
+    public void clearPlayer(int playerId) {
+        bursts.remove(playerId);
+    }
+
+    public void clear() {
+        bursts.clear();
+    }
+}
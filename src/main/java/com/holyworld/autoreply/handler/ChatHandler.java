@@ -1,141 +1,412 @@
 package com.holyworld.autoreply.handler;
 
 import com.holyworld.autoreply.HolyWorldAutoReply;
+import com.holyworld.autoreply.ai.CheckMessage;
+import com.holyworld.autoreply.ai.EngineWarmup;
+import com.holyworld.autoreply.ai.PlayerLongTable;
+import com.holyworld.autoreply.ai.PlayerRegistry;
+import com.holyworld.autoreply.ai.ResponseBandit;
 import com.holyworld.autoreply.ai.ResponseEngine;
+import com.holyworld.autoreply.monitor.*;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.text.Text;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.concurrent.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ChatHandler {
 
-    /*
-     * Log format from HolyWorld:
-     * [20:13:50] [Render thread/INFO]: [System] [CHAT] \u00a7d\u00a7l[CHECK] \u00a7fAAAlpine14288 \u00a75-> za chto
-     *
-     * In-game the Text.getString() strips some formatting, so we need multiple patterns.
-     */
-
-    // Pattern 1: with color codes in getString()
-    private static final Pattern CHECK_PATTERN_COLORED = Pattern.compile(
-        "\\u00a7d\\u00a7l\\[CHECK\\]\\s*\\u00a7f(\\S+)\\s*\\u00a75->\\s*(.*)"
-    );
-
-    // Pattern 2: stripped color codes
-    private static final Pattern CHECK_PATTERN_CLEAN = Pattern.compile(
-        "\\[CHECK\\]\\s+(\\S+)\\s+->\\s+(.*)"
-    );
-
-    // Pattern 3: partial color codes
-    private static final Pattern CHECK_PATTERN_PARTIAL = Pattern.compile(
-        "\\[CHECK\\]\\s*[^\\w]*(\\S+)\\s*[^\\w]*->\\s*(.*)"
-    );
-
     private final ResponseEngine responseEngine;
     private final ScheduledExecutorService scheduler;
+    // Shared with the engine; everything per player below is indexed by these ids
+    private final PlayerRegistry players;
 
     // Cooldown per player to avoid spam
-    private final ConcurrentHashMap<String, Long> lastReplyTime = new ConcurrentHashMap<>();
+    private final PlayerLongTable lastReplyTime = new PlayerLongTable();
     private static final long COOLDOWN_MS = 2500;
 
+    // Duplicate lines are dropped before evaluation; send time of a reply still in flight
+    private final FloodFilter floodFilter = new FloodFilter();
+    private final PlayerLongTable pendingReplies = new PlayerLongTable();
+    // Bumped by clearPlayer, and for everyone by clearAllStates; a scheduled reply from an older generation is not sent
+    private final PlayerLongTable replyGenerations = new PlayerLongTable();
+    private final AtomicLong clearGeneration = new AtomicLong();
+
+    // Lines sent during a cooldown, answered together when it ends; burstLines is scheduler-thread scratch
+    private final BurstBuffer bursts;
+    private final String[] burstLines = new String[BurstBuffer.MAX_LINES];
+
+    // Replies leave on the client thread, a few per tick
+    private final SendQueue sendQueue = new SendQueue();
+
+    // [CHECK] lines over CheckMessage.MAX_LINE_LENGTH dropped in hardened mode
+    private final LongAdder oversizedLines = new LongAdder();
+
+    // Parse-to-response latency of the first [CHECK] after start, logged once against the warm-up status
+    private final AtomicBoolean firstReplyLogged = new AtomicBoolean();
+
+    /*
+     * System line markers. Everything is routed through one SystemLineDispatcher walk, anchored
+     * to the start of the line so the same text typed by a player in chat never matches.
+     * Only [CHECK] is confirmed from logs, the other texts follow the server's announcements
+     * and are kept here so they are easy to adjust.
+     */
+    private static final String MARKER_CHECK = CheckMessage.MARKER;
+    private static final String MARKER_REPORT = "[REPORT]";
+    private static final String MARKER_PRIVATE_ECHO = "[\u042f ->"; // [Я ->
+    private static final String MARKER_CHECK_START = "\u0412\u044b \u043d\u0430\u0447\u0430\u043b\u0438 \u043f\u0440\u043e\u0432\u0435\u0440\u043a\u0443 \u0438\u0433\u0440\u043e\u043a\u0430"; // Вы начали проверку игрока
+    private static final String MARKER_CHECK_END = "\u0412\u044b \u0437\u0430\u0432\u0435\u0440\u0448\u0438\u043b\u0438 \u043f\u0440\u043e\u0432\u0435\u0440\u043a\u0443 \u0438\u0433\u0440\u043e\u043a\u0430"; // Вы завершили проверку игрока
+    private static final String MARKER_BAN = "\u0431\u044b\u043b \u0437\u0430\u0431\u043b\u043e\u043a\u0438\u0440\u043e\u0432\u0430\u043d"; // был заблокирован
+
+    private final SystemLineDispatcher dispatcher = new SystemLineDispatcher();
+
+    // Proactive reminders and timeout alerts, only touched on the scheduler thread
+    private final CheckTimerWheel timers;
+    private volatile int[] reminderMarks = {3, 1};
+    private static final long REMINDER_MIN_SILENCE_MS = 30_000;
+
+    // Which reply variants get codes, kept across sessions in the config dir
+    private final ResponseBandit bandit = new ResponseBandit();
+    private final Path banditFile = FabricLoader.getInstance().getConfigDir().resolve("holyworld-autoreply-bandit.tsv");
+    private static final long BANDIT_SAVE_SECONDS = 60;
+
     public ChatHandler() {
         this.responseEngine = new ResponseEngine();
+        this.players = responseEngine.getPlayers();
+        this.bursts = new BurstBuffer((playerId, line) -> responseEngine.peekPriority(line, playerId));
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "HW-AutoReply");
             t.setDaemon(true);
             return t;
         });
+        this.timers = new CheckTimerWheel(new CheckTimerWheel.Listener() {
+            @Override
+            public void onReminder(int playerId, int remainingMinutes) {
+                onCheckReminder(playerId, remainingMinutes);
+            }
+
+            @Override
+            public void onTimeout(int playerId) {
+                onCheckTimeout(playerId);
+            }
+        }, System.currentTimeMillis());
+        scheduler.scheduleAtFixedRate(() -> timers.tick(System.currentTimeMillis()),
+            CheckTimerWheel.TICK_MS, CheckTimerWheel.TICK_MS, TimeUnit.MILLISECONDS);
+        loadBandit();
+        scheduler.scheduleAtFixedRate(this::saveBandit, BANDIT_SAVE_SECONDS, BANDIT_SAVE_SECONDS, TimeUnit.SECONDS);
+        registerSystemLines();
         registerListener();
+        ClientTickEvents.END_CLIENT_TICK.register(sendQueue::drain);
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> shutdown());
+    }
+
+    /**
+     * Client is closing: stop the timers and write what the bandit learned since the last periodic save.
+     */
+    private void shutdown() {
+        scheduler.shutdownNow();
+        saveBandit();
+    }
+
+    private void registerSystemLines() {
+        dispatcher
+            .register(MARKER_CHECK, (line, start, end) -> processMessage(line, end))
+            .register(MARKER_CHECK_START, (line, start, end) -> {
+                // Fresh check: drop anything left over from an earlier one
+                String name = tokenAfter(line, end);
+                if (name.isEmpty()) return;
+                int id = players.idOf(name);
+                clearPlayer(id);
+                responseEngine.startCheck(id);
+                rescheduleTimers(id);
+                HolyWorldAutoReply.LOGGER.info("[AutoReply] Check started: {}", name);
+            })
+            .register(MARKER_CHECK_END, (line, start, end) -> {
+                String name = tokenAfter(line, end);
+                if (name.isEmpty()) return;
+                int id = players.find(name);
+                if (id != PlayerRegistry.UNKNOWN) clearPlayer(id);
+                HolyWorldAutoReply.LOGGER.info("[AutoReply] Check finished, state freed: {}", name);
+            })
+            .register(MARKER_BAN, SystemLineDispatcher.Anchor.AFTER_NAME, (line, start, end) -> {
+                String name = tokenBefore(line, start);
+                if (name.isEmpty()) return;
+                int id = players.find(name);
+                if (id != PlayerRegistry.UNKNOWN) clearPlayer(id);
+                HolyWorldAutoReply.LOGGER.info("[AutoReply] Ban confirmed, state freed: {}", name);
+            })
+            .register(MARKER_REPORT, (line, start, end) ->
+                HolyWorldAutoReply.LOGGER.info("[AutoReply] Report: {}", CheckMessage.stripColorCodes(line.substring(end)).trim()))
+            .register(MARKER_PRIVATE_ECHO, (line, start, end) ->
+                HolyWorldAutoReply.LOGGER.debug("[AutoReply] Private message echo: {}", CheckMessage.stripColorCodes(line).trim()));
     }
 
     public ResponseEngine getResponseEngine() {
         return responseEngine;
     }
 
+    public FloodFilter getFloodFilter() {
+        return floodFilter;
+    }
+
+    public BurstBuffer getBursts() {
+        return bursts;
+    }
+
+    public SendQueue getSendQueue() {
+        return sendQueue;
+    }
+
+    public long getOversizedLines() {
+        return oversizedLines.sum();
+    }
+
+    /**
+     * Forget everything known about players: engine state, cooldowns, flood history and unsent replies.
+     */
+    public void clearAllStates() {
+        clearGeneration.incrementAndGet();
+        pendingReplies.clear();
+        responseEngine.clearAllStates();
+        lastReplyTime.clear();
+        floodFilter.clear();
+        bursts.clear();
+        sendQueue.clear();
+        scheduler.execute(() -> {
+            timers.cancelAll();
+            // A reply task that passed its generation check just before the bump has enqueued by now
+            sendQueue.clear();
+        });
+    }
+
+    /**
+     * Forget one player, including replies and reminders that were scheduled or queued but not sent yet.
+     */
+    private void clearPlayer(int playerId) {
+        responseEngine.clearPlayerState(playerId);
+        lastReplyTime.remove(playerId);
+        floodFilter.clearPlayer(playerId);
+        bursts.clearPlayer(playerId);
+        long generation;
+        do {
+            generation = replyGenerations.get(playerId);
+        } while (!replyGenerations.compareAndSet(playerId, generation, generation + 1));
+        pendingReplies.remove(playerId);
+        String name = players.nameOf(playerId);
+        int dropped = name == null ? 0 : sendQueue.clearPlayer(name);
+        if (dropped > 0) {
+            HolyWorldAutoReply.LOGGER.debug("[AutoReply] {} queued replies to {} dropped", dropped, name);
+        }
+        scheduler.execute(() -> timers.cancel(playerId));
+    }
+
+    // ======================== BANDIT ========================
+
+    public ResponseBandit getBandit() {
+        return bandit;
+    }
+
+    public Path getBanditFile() {
+        return banditFile;
+    }
+
+    private void loadBandit() {
+        try {
+            int arms = bandit.load(banditFile);
+            HolyWorldAutoReply.LOGGER.info("[AutoReply] Reply stats loaded: {} variants from {}", arms, banditFile.getFileName());
+        } catch (IOException e) {
+            HolyWorldAutoReply.LOGGER.warn("[AutoReply] Could not read {}, starting fresh: {}", banditFile, e.getMessage());
+        }
+        responseEngine.setBandit(bandit);
+    }
+
+    /**
+     * Write the reply stats if anything was scored since the last save. Runs on the scheduler,
+     * and on the client thread at shutdown; both write through the same temp file.
+     */
+    public synchronized void saveBandit() {
+        if (!bandit.isDirty()) return;
+        try {
+            bandit.save(banditFile);
+        } catch (IOException e) {
+            HolyWorldAutoReply.LOGGER.warn("[AutoReply] Could not save {}: {}", banditFile, e.getMessage());
+        }
+    }
+
+    // ======================== CHECK TIMERS ========================
+
+    public int[] getReminderMarks() {
+        return reminderMarks.clone();
+    }
+
+    /**
+     * Remaining-minute marks at which a silent player gets a nudge. Applies from the next message.
+     */
+    public void setReminderMarks(int[] marks) {
+        this.reminderMarks = marks.clone();
+    }
+
+    /**
+     * Any player message restarts their timers against the fixed check deadline.
+     */
+    private void rescheduleTimers(int playerId) {
+        long now = System.currentTimeMillis();
+        ResponseEngine.PlayerState state = responseEngine.getPlayerState(playerId);
+        long start = state != null ? state.checkStartTime : now;
+        long deadline = start + ResponseEngine.PlayerState.CHECK_MINUTES * 60_000L;
+        int[] marks = reminderMarks;
+        scheduler.execute(() -> timers.reschedule(playerId, deadline, marks, REMINDER_MIN_SILENCE_MS, now));
+    }
+
+    private void onCheckReminder(int playerId, int remainingMinutes) {
+        if (!HolyWorldAutoReply.isEnabled()) return;
+        ResponseEngine.PlayerState state = responseEngine.getPlayerState(playerId);
+        // Codes already given, the check is in the moderator's hands
+        if (state == null || state.gaveCodes) return;
+
+        // Addressed by name: with several checks running, /r would go to whoever wrote last
+        sendQueue.enqueueTo(players.nameOf(playerId), remainingMinutes + " \u043c\u0438\u043d \u0443 \u0442\u0435\u0431\u044f, \u0436\u0434\u0443 \u0430\u043d\u0438\u043a",
+            System.currentTimeMillis());
+    }
+
+    private void onCheckTimeout(int playerId) {
+        if (!HolyWorldAutoReply.isEnabled()) return;
+        ResponseEngine.PlayerState state = responseEngine.getPlayerState(playerId);
+        if (state == null || state.gaveCodes) return;
+
+        String playerName = players.nameOf(playerId);
+        HolyWorldAutoReply.LOGGER.warn("[AutoReply] Check window expired for {}: timeout, ban", playerName);
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client == null) return;
+        client.execute(() -> {
+            if (client.player != null) {
+                client.player.sendMessage(Text.literal(
+                    "\u00a7c\u00a7l[AutoReply] \u00a7f" + playerName + " \u00a7c\u2014 \u0432\u0440\u0435\u043c\u044f \u0432\u044b\u0448\u043b\u043e, \u0431\u0430\u043d!"
+                ), false);
+            }
+        });
+    }
+
     private void registerListener() {
         // For 1.20.1 Fabric API
         ClientReceiveMessageEvents.GAME.register((message, overlay) -> {
             if (!HolyWorldAutoReply.isEnabled()) return;
             if (overlay) return;
 
+            MessageReceivedEvent event = new MessageReceivedEvent();
+            event.begin();
             try {
                 String rawText = message.getString();
-                processMessage(rawText);
+                boolean handled = dispatcher.dispatch(rawText);
+
+                if (event.shouldCommit()) {
+                    event.length = rawText.length();
+                    event.systemLine = handled;
+                    event.commit();
+                }
             } catch (Exception e) {
                 HolyWorldAutoReply.LOGGER.error("[AutoReply] Error processing message", e);
             }
         });
     }
 
-    private void processMessage(String rawMessage) {
-        if (rawMessage == null || !rawMessage.contains("[CHECK]")) {
+    private void processMessage(String rawMessage, int markerEnd) {
+        // The evaluation budget runs from here, parsing included
+        long receivedNanos = System.nanoTime();
+
+        // No real check line is this long; do not spend the render thread on one
+        if (rawMessage.length() > CheckMessage.MAX_LINE_LENGTH && responseEngine.isHardened()) {
+            oversizedLines.increment();
+            HolyWorldAutoReply.LOGGER.debug("[AutoReply] Dropped [CHECK] line of {} chars", rawMessage.length());
             return;
         }
 
-        String playerName = null;
-        String playerMessage = null;
+        CheckParseEvent parseEvent = new CheckParseEvent();
+        parseEvent.begin();
 
-        // Try all patterns
-        Matcher m = CHECK_PATTERN_COLORED.matcher(rawMessage);
-        if (m.find()) {
-            playerName = m.group(1);
-            playerMessage = m.group(2);
-        }
+        CheckMessage parsed = CheckMessage.parse(rawMessage, markerEnd);
 
-        if (playerName == null) {
-            m = CHECK_PATTERN_CLEAN.matcher(rawMessage);
-            if (m.find()) {
-                playerName = m.group(1);
-                playerMessage = m.group(2);
-            }
+        if (parseEvent.shouldCommit()) {
+            parseEvent.pattern = parsed != null ? parsed.pattern : "none";
+            parseEvent.player = parsed != null ? parsed.player : null;
+            parseEvent.commit();
         }
 
-        if (playerName == null) {
-            m = CHECK_PATTERN_PARTIAL.matcher(rawMessage);
-            if (m.find()) {
-                playerName = m.group(1);
-                playerMessage = m.group(2);
-            }
-        }
+        if (parsed == null) return;
+        String playerName = parsed.player;
+        String playerMessage = parsed.message;
+        // The only time this message hashes the player name
+        int playerId = players.idOf(playerName);
+
+        long now = System.currentTimeMillis();
+        rescheduleTimers(playerId);
 
-        // Fallback: manual parsing
-        if (playerName == null) {
-            int checkIdx = rawMessage.indexOf("[CHECK]");
-            String afterCheck = rawMessage.substring(checkIdx + 7);
-            // Remove all section sign color codes
-            afterCheck = stripColorCodes(afterCheck).trim();
-
-            int arrowIdx = afterCheck.indexOf("->");
-            if (arrowIdx > 0) {
-                playerName = afterCheck.substring(0, arrowIdx).trim();
-                playerMessage = afterCheck.substring(arrowIdx + 2).trim();
+        // Flood check: repeated lines never reach the engine, the original already got its answer
+        FloodFilter.Verdict verdict = floodFilter.check(playerId, playerMessage, now);
+        if (verdict != FloodFilter.Verdict.NEW) {
+            if (pendingReplies.get(playerId) != PlayerLongTable.EMPTY) {
+                HolyWorldAutoReply.LOGGER.debug("[AutoReply] {} from {} skipped, reply still pending: {}",
+                    verdict, playerName, playerMessage);
+            } else {
+                HolyWorldAutoReply.LOGGER.debug("[AutoReply] {} from {} skipped: {}",
+                    verdict, playerName, playerMessage);
             }
+            return;
         }
 
-        if (playerName == null || playerMessage == null || playerMessage.trim().isEmpty()) {
+        // Cooldown check: a single CAS, so of two racing messages only one gets a reply.
+        // Lines inside the window, or behind an open burst, wait and are answered together.
+        if (bursts.isOpen(playerId) || !lastReplyTime.advanceIfElapsed(playerId, now, COOLDOWN_MS)) {
+            if (bursts.add(playerId, playerMessage)) {
+                long last = lastReplyTime.get(playerId);
+                long wait = last == PlayerLongTable.EMPTY ? 0 : Math.max(0, last + COOLDOWN_MS - now);
+                scheduler.schedule(() -> flushBurst(playerId, playerName), wait, TimeUnit.MILLISECONDS);
+            }
             return;
         }
 
-        // Clean up
-        playerName = stripColorCodes(playerName).trim();
-        playerMessage = stripColorCodes(playerMessage).trim();
+        // Get response
+        String response = responseEngine.getResponse(playerMessage, playerId, receivedNanos);
+
+        if (!firstReplyLogged.get() && firstReplyLogged.compareAndSet(false, true)) {
+            HolyWorldAutoReply.LOGGER.info("[AutoReply] First reply evaluated in {} us (JIT warm-up: {})",
+                (System.nanoTime() - receivedNanos) / 1000, EngineWarmup.getStatus());
+        }
 
-        if (playerName.isEmpty() || playerMessage.isEmpty()) return;
+        scheduleReply(playerId, playerName, response, playerMessage, now);
+    }
 
-        // Cooldown check
-        long now = System.currentTimeMillis();
-        Long lastTime = lastReplyTime.get(playerName);
-        if (lastTime != null && (now - lastTime) < COOLDOWN_MS) {
+    /**
+     * Cooldown over: answer everything the player sent during it with one reply. Scheduler thread.
+     */
+    private void flushBurst(int playerId, String playerName) {
+        if (!HolyWorldAutoReply.isEnabled()) {
+            bursts.clearPlayer(playerId);
             return;
         }
-        lastReplyTime.put(playerName, now);
+        long now = System.currentTimeMillis();
+        // Claim the next window before draining: a line arriving in between still joins this burst
+        lastReplyTime.set(playerId, now);
+        int count = bursts.drain(playerId, burstLines);
+        if (count == 0) return;
 
-        // Get response
-        String response = responseEngine.getResponse(playerMessage, playerName);
+        String response = responseEngine.getResponse(burstLines, count, playerId);
+        String lastLine = burstLines[count - 1];
+        Arrays.fill(burstLines, 0, count, null);
+        HolyWorldAutoReply.LOGGER.debug("[AutoReply] {} lines from {} answered together", count, playerName);
+        scheduleReply(playerId, playerName, response, count > 1 ? lastLine + " (+" + (count - 1) + ")" : lastLine, now);
+    }
 
+    private void scheduleReply(int playerId, String playerName, String response, String playerMessage, long now) {
         if (response != null && !response.isEmpty()) {
             final String finalResponse = response;
             final String finalPlayerName = playerName;
@@ -143,8 +414,22 @@ public class ChatHandler {
             // Random delay 0.8-2.0 seconds
             long delay = 800 + (long) (Math.random() * 1200);
 
+            ReplyScheduledEvent scheduledEvent = new ReplyScheduledEvent();
+            if (scheduledEvent.shouldCommit()) {
+                scheduledEvent.player = finalPlayerName;
+                scheduledEvent.plannedDelay = delay;
+                scheduledEvent.commit();
+            }
+
+            long generation = replyGenerations.get(playerId);
+            long clears = clearGeneration.get();
+            pendingReplies.set(playerId, now + delay);
             scheduler.schedule(() -> {
-                sendReply(finalPlayerName, finalResponse);
+                // The check ended, the player was banned or /ai stop or /ai clear ran while the reply waited
+                if (!HolyWorldAutoReply.isEnabled() || clearGeneration.get() != clears
+                    || replyGenerations.get(playerId) != generation) return;
+                pendingReplies.compareAndSet(playerId, now + delay, PlayerLongTable.EMPTY);
+                sendReply(finalPlayerName, finalResponse, now, delay);
             }, delay, TimeUnit.MILLISECONDS);
         } else {
             // null response = ban signal, log it
@@ -152,29 +437,25 @@ public class ChatHandler {
         }
     }
 
-    private void sendReply(String playerName, String message) {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client == null || client.player == null || client.getNetworkHandler() == null) {
-            return;
-        }
+    private void sendReply(String playerName, String message, long evaluatedAt, long plannedDelay) {
+        sendQueue.enqueue(playerName, message, evaluatedAt, plannedDelay);
+    }
 
-        client.execute(() -> {
-            if (client.player != null && client.getNetworkHandler() != null) {
-                // Use /r to reply to the player who messaged
-                String command = "r " + message;
-                client.getNetworkHandler().sendChatCommand(command);
-                HolyWorldAutoReply.LOGGER.info("[AutoReply] Sent to {}: {}", playerName, message);
-            }
-        });
+    /**
+     * First whitespace-delimited word after the given index, color codes removed.
+     */
+    private static String tokenAfter(String line, int from) {
+        String rest = CheckMessage.stripColorCodes(line.substring(from)).trim();
+        int space = rest.indexOf(' ');
+        return space < 0 ? rest : rest.substring(0, space);
     }
 
     /**
-     * Remove Minecraft color codes (section sign + character)
+     * Last whitespace-delimited word before the given index, color codes removed.
      */
-    private static String stripColorCodes(String input) {
-        if (input == null) return "";
-        // Handle both real section signs and escaped ones
-        return input.replaceAll("\u00a7[0-9a-fk-orA-FK-OR]", "")
-                     .replaceAll("&[0-9a-fk-orA-FK-OR]", "");
+    private static String tokenBefore(String line, int to) {
+        String head = CheckMessage.stripColorCodes(line.substring(0, to)).trim();
+        int space = head.lastIndexOf(' ');
+        return space < 0 ? head : head.substring(space + 1);
     }
 }
@@ -0,0 +1,188 @@
+package com.holyworld.autoreply.handler;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timing wheel for per-player check timers: reminder nudges at configured
+ * remaining-minute marks and a timeout when the check window closes.
+ *
+ * Schedule and cancel are O(1) per timer: a timer sits in the wheel slot of its deadline tick
+ * inside a doubly linked list, and is also chained to its player so all of a player's timers
+ * can be dropped at once. One tick per second on a single thread handles hundreds of checks.
+ *
+ * Not thread-safe: every method must run on the thread that calls {@link #tick(long)}.
+ */
+public class CheckTimerWheel {
+
+    public interface Listener {
+        void onReminder(int playerId, int remainingMinutes);
+
+        void onTimeout(int playerId);
+    }
+
+    public static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 512; // power of two, ~8.5 minutes per revolution
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int TIMEOUT = -1;
+
+    private static final class Timer {
+        final int playerId;
+        final int mark; // remaining minutes, or TIMEOUT
+        final long checkDeadline;
+        final long deadlineTick;
+        Timer prev;
+        Timer next;
+        Timer nextForPlayer;
+        Timer nextDue;
+        boolean linked;
+
+        Timer(int playerId, int mark, long checkDeadline, long deadlineTick) {
+            this.playerId = playerId;
+            this.mark = mark;
+            this.checkDeadline = checkDeadline;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final Timer[] slots = new Timer[WHEEL_SIZE];
+    // Head of each player's timer chain, indexed by player id
+    private Timer[] byPlayer = new Timer[64];
+    private final Listener listener;
+    private long currentTick;
+    private int size = 0;
+
+    public CheckTimerWheel(Listener listener, long nowMillis) {
+        this.listener = listener;
+        this.currentTick = nowMillis / TICK_MS;
+    }
+
+    /**
+     * Replace all timers of a player: one reminder per mark still ahead of the deadline,
+     * never sooner than {@code minDelayMs} from now, plus the timeout at the deadline.
+     */
+    public void reschedule(int playerId, long checkDeadline, int[] reminderMarks, long minDelayMs, long nowMillis) {
+        cancel(playerId);
+        if (checkDeadline <= nowMillis) return;
+
+        for (int mark : reminderMarks) {
+            long at = checkDeadline - mark * 60_000L;
+            if (at <= nowMillis) continue;
+            add(playerId, mark, Math.max(at, nowMillis + minDelayMs), checkDeadline);
+        }
+        add(playerId, TIMEOUT, checkDeadline, checkDeadline);
+    }
+
+    /**
+     * Drop every timer of the player.
+     */
+    public void cancel(int playerId) {
+        if (playerId >= byPlayer.length) return;
+        Timer t = byPlayer[playerId];
+        byPlayer[playerId] = null;
+        while (t != null) {
+            unlink(t);
+            t = t.nextForPlayer;
+        }
+    }
+
+    public void cancelAll() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            slots[i] = null;
+        }
+        Arrays.fill(byPlayer, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Advance to {@code nowMillis}, firing everything due. Catches up on missed ticks.
+     */
+    public void tick(long nowMillis) {
+        long target = nowMillis / TICK_MS;
+        while (currentTick < target) {
+            currentTick++;
+            expire(slots[(int) (currentTick & MASK)]);
+        }
+    }
+
+    // ======================== INTERNALS ========================
+
+    private void add(int playerId, int mark, long fireAtMillis, long checkDeadline) {
+        long tick = Math.max(currentTick + 1, (fireAtMillis + TICK_MS - 1) / TICK_MS);
+        Timer t = new Timer(playerId, mark, checkDeadline, tick);
+
+        int slot = (int) (tick & MASK);
+        t.next = slots[slot];
+        if (t.next != null) t.next.prev = t;
+        slots[slot] = t;
+        t.linked = true;
+        size++;
+
+        if (playerId >= byPlayer.length) {
+            byPlayer = Arrays.copyOf(byPlayer, Math.max(byPlayer.length * 2, playerId + 1));
+        }
+        t.nextForPlayer = byPlayer[playerId];
+        byPlayer[playerId] = t;
+    }
+
+    private void unlink(Timer t) {
+        if (!t.linked) return;
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            slots[(int) (t.deadlineTick & MASK)] = t.next;
+        }
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = null;
+        t.next = null;
+        t.linked = false;
+        size--;
+    }
+
+    private void expire(Timer head) {
+        // Detach everything due first, listeners may reschedule while we fire
+        Timer due = null;
+        Timer t = head;
+        while (t != null) {
+            Timer next = t.next;
+            // Later revolutions share the slot, leave them for their round
+            if (t.deadlineTick <= currentTick) {
+                unlink(t);
+                forget(t);
+                t.nextDue = due;
+                due = t;
+            }
+            t = next;
+        }
+
+        long now = currentTick * TICK_MS;
+        for (t = due; t != null; t = t.nextDue) {
+            if (t.mark == TIMEOUT) {
+                listener.onTimeout(t.playerId);
+            } else {
+                int remaining = (int) Math.max(1, (t.checkDeadline - now + 59_999) / 60_000);
+                listener.onReminder(t.playerId, Math.min(t.mark, remaining));
+            }
+        }
+    }
+
+    /**
+     * Remove a fired timer from its player's chain.
+     */
+    private void forget(Timer fired) {
+        Timer head = byPlayer[fired.playerId];
+        if (head == fired) {
+            byPlayer[fired.playerId] = fired.nextForPlayer;
+            return;
+        }
+        for (Timer t = head; t != null; t = t.nextForPlayer) {
+            if (t.nextForPlayer == fired) {
+                t.nextForPlayer = fired.nextForPlayer;
+                return;
+            }
+        }
+    }
+}
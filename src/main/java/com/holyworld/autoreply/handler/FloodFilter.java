@@ -0,0 +1,114 @@
+package com.holyworld.autoreply.handler;
+
+import com.holyworld.autoreply.ai.PlayerTable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-player duplicate detection for spammed lines ("??", "ало", the same code twice).
+ *
+ * Each player keeps a small ring of hashes of their recent messages. Two hashes are
+ * computed in a single pass over the text:
+ *  - exact: the lowercased, trimmed message
+ *  - near:  the same text with whitespace removed and repeated characters squeezed,
+ *           so "??" / "???" and "ало" / "алооо" collide. Digits are never squeezed:
+ *           "1223456" corrected to "123456" is a different code, not a repeat
+ * Lookup is a scan of a fixed-size ring, so it is O(1) per message.
+ */
+public class FloodFilter {
+
+    public enum Verdict {
+        NEW,
+        EXACT_DUPLICATE,
+        NEAR_DUPLICATE
+    }
+
+    private static final int RING_SIZE = 8;
+    private static final long WINDOW_MS = 10_000;
+
+    private static final long EXACT_BASE = 0x100000001b3L;
+    private static final long NEAR_BASE = 31;
+
+    private final PlayerTable<Ring> rings = new PlayerTable<>(Ring::new);
+    private final LongAdder exactDuplicates = new LongAdder();
+    private final LongAdder nearDuplicates = new LongAdder();
+
+    private static class Ring {
+        final long[] exact = new long[RING_SIZE];
+        final long[] near = new long[RING_SIZE];
+        final long[] time = new long[RING_SIZE];
+        int next = 0;
+    }
+
+    /**
+     * Classify a message against the player's recent history and remember it.
+     */
+    public Verdict check(int playerId, String message, long now) {
+        long exactHash = 0;
+        long nearHash = 0;
+        char prev = 0;
+
+        int start = 0;
+        int end = message.length();
+        while (start < end && Character.isWhitespace(message.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(message.charAt(end - 1))) end--;
+
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(message.charAt(i));
+            exactHash = exactHash * EXACT_BASE + c;
+            if (Character.isWhitespace(c) || (c == prev && !isDigit(c))) continue;
+            nearHash = nearHash * NEAR_BASE + c;
+            prev = c;
+        }
+
+        Ring ring = rings.getOrCreate(playerId);
+        synchronized (ring) {
+            Verdict verdict = Verdict.NEW;
+            for (int i = 0; i < RING_SIZE; i++) {
+                if (ring.time[i] == 0 || now - ring.time[i] > WINDOW_MS) continue;
+                if (ring.exact[i] == exactHash) {
+                    verdict = Verdict.EXACT_DUPLICATE;
+                    break;
+                }
+                if (ring.near[i] == nearHash) {
+                    verdict = Verdict.NEAR_DUPLICATE;
+                }
+            }
+
+            // Only originals are remembered, so a line spammed forever is still
+            // answered once per window instead of being suppressed indefinitely
+            if (verdict != Verdict.NEW) {
+                if (verdict == Verdict.EXACT_DUPLICATE) exactDuplicates.increment();
+                else nearDuplicates.increment();
+                return verdict;
+            }
+
+            int slot = ring.next;
+            ring.exact[slot] = exactHash;
+            ring.near[slot] = nearHash;
+            ring.time[slot] = now;
+            ring.next = (slot + 1) % RING_SIZE;
+            return verdict;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public long getExactDuplicates() {
+        return exactDuplicates.sum();
+    }
+
+    public long getNearDuplicates() {
+        return nearDuplicates.sum();
+    }
+
+    public void clearPlayer(int playerId) {
+        rings.remove(playerId);
+    }
+
+    public void clear() {
+        rings.clear();
+    }
+}
@@ -0,0 +1,217 @@
+package com.holyworld.autoreply.handler;
+
+import com.holyworld.autoreply.HolyWorldAutoReply;
+import com.holyworld.autoreply.monitor.ReplySentEvent;
+import net.minecraft.client.MinecraftClient;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outgoing replies, sent on the client thread at the end of each tick.
+ *
+ * Answers to a player's message go out as /r, which reaches whoever messaged last. Lines the
+ * mod starts on its own, like reminders, may fire while another player is talking, so they
+ * are addressed by name with /msg instead.
+ *
+ * Producers (the scheduler, reminders) only append to a lock-free queue; there is no
+ * client.execute runnable per reply. Each tick sends at most {@link #MAX_SENDS_PER_TICK}
+ * commands in arrival order. While the player or network handler is missing, as during a
+ * world switch or reconnect, replies stay queued and go out once the connection is back,
+ * unless they waited longer than {@link #TTL_MS}: by then they would answer a conversation
+ * that has moved on, so they are dropped and counted as lost.
+ */
+public class SendQueue {
+
+    public static final int MAX_SENDS_PER_TICK = 2;
+    public static final long TTL_MS = 20_000;
+
+    private static final class Outgoing {
+        final String playerName;
+        final String message;
+        // /msg playerName instead of /r
+        final boolean addressed;
+        final long evaluatedAt;
+        final long plannedDelay;
+        final long queuedAt;
+
+        Outgoing(String playerName, String message, boolean addressed, long evaluatedAt, long plannedDelay, long queuedAt) {
+            this.playerName = playerName;
+            this.message = message;
+            this.addressed = addressed;
+            this.evaluatedAt = evaluatedAt;
+            this.plannedDelay = plannedDelay;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Outgoing> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder blockedTicks = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    // Enqueue-to-send wait, and time spent draining on the client thread
+    private final LongAdder waitMillis = new LongAdder();
+    private final LongAccumulator maxWaitMillis = new LongAccumulator(Math::max, 0);
+    private final LongAdder drainNanos = new LongAdder();
+    private final LongAdder drainTicks = new LongAdder();
+
+    /**
+     * Queue a /r reply to the player's last message for the next tick. Safe from any thread.
+     */
+    public void enqueue(String playerName, String message, long evaluatedAt, long plannedDelay) {
+        add(new Outgoing(playerName, message, false, evaluatedAt, plannedDelay, System.currentTimeMillis()));
+    }
+
+    /**
+     * Queue a /msg to the named player, for lines that do not answer their last message. Safe from any thread.
+     */
+    public void enqueueTo(String playerName, String message, long evaluatedAt) {
+        add(new Outgoing(playerName, message, true, evaluatedAt, 0, System.currentTimeMillis()));
+    }
+
+    private void add(Outgoing reply) {
+        queue.add(reply);
+        queued.increment();
+        maxDepth.accumulate(depth.incrementAndGet());
+    }
+
+    /**
+     * END_CLIENT_TICK callback: expire stale replies, then send up to MAX_SENDS_PER_TICK.
+     * While the mod is off nothing is sent and whatever still arrives is dropped.
+     */
+    public void drain(MinecraftClient client) {
+        if (queue.isEmpty()) return;
+        if (!HolyWorldAutoReply.isEnabled()) {
+            clear();
+            return;
+        }
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+
+        Outgoing head;
+        while ((head = queue.peek()) != null && now - head.queuedAt > TTL_MS) {
+            if (queue.poll() == null) break;
+            depth.decrementAndGet();
+            expired.increment();
+            HolyWorldAutoReply.LOGGER.warn("[AutoReply] Reply to {} dropped after {} ms without a connection: {}",
+                head.playerName, now - head.queuedAt, head.message);
+        }
+
+        if (client.player == null || client.getNetworkHandler() == null) {
+            // Keep everything for when the connection is back
+            if (!queue.isEmpty()) blockedTicks.increment();
+        } else {
+            for (int i = 0; i < MAX_SENDS_PER_TICK; i++) {
+                Outgoing reply = queue.poll();
+                if (reply == null) break;
+                depth.decrementAndGet();
+                send(client, reply, now);
+            }
+        }
+
+        drainNanos.add(System.nanoTime() - start);
+        drainTicks.increment();
+    }
+
+    private void send(MinecraftClient client, Outgoing reply, long now) {
+        // /r goes to the player who messaged last
+        client.getNetworkHandler().sendChatCommand(reply.addressed
+            ? "msg " + reply.playerName + " " + reply.message
+            : "r " + reply.message);
+        HolyWorldAutoReply.LOGGER.info("[AutoReply] Sent to {}: {}", reply.playerName, reply.message);
+
+        sent.increment();
+        long wait = now - reply.queuedAt;
+        waitMillis.add(wait);
+        maxWaitMillis.accumulate(wait);
+
+        ReplySentEvent sentEvent = new ReplySentEvent();
+        if (sentEvent.shouldCommit()) {
+            sentEvent.player = reply.playerName;
+            sentEvent.plannedDelay = reply.plannedDelay;
+            sentEvent.actualDelay = now - reply.evaluatedAt;
+            sentEvent.commit();
+        }
+    }
+
+    /**
+     * Drop everything not yet sent. Not counted as lost.
+     */
+    public void clear() {
+        while (queue.poll() != null) {
+            depth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drop the player's replies that were not sent yet, as when their check ends. Not counted as lost.
+     *
+     * @return how many were dropped
+     */
+    public int clearPlayer(String playerName) {
+        int dropped = 0;
+        for (Outgoing reply : queue) {
+            // remove() fails when the client thread sent it in the meantime
+            if (reply.playerName.equals(playerName) && queue.remove(reply)) {
+                depth.decrementAndGet();
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    // ======================== STATS ========================
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Replies that outlived TTL_MS while the client had no connection.
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * Ticks that had replies waiting but no player or network handler to send them.
+     */
+    public long getBlockedTicks() {
+        return blockedTicks.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long n = sent.sum();
+        return n == 0 ? 0 : (double) waitMillis.sum() / n;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    /**
+     * Client-thread cost of a tick that had something queued.
+     */
+    public double getAverageDrainMicros() {
+        long n = drainTicks.sum();
+        return n == 0 ? 0 : drainNanos.sum() / 1000.0 / n;
+    }
+}
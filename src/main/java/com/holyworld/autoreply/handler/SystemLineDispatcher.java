@@ -0,0 +1,189 @@
+package com.holyworld.autoreply.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes system chat lines to handlers by the marker they start with ("[CHECK]", ban confirmations, ...).
+ *
+ * Markers are anchored. Players can type any marker text into chat, but the server always puts
+ * the sender in front of a chat line, so only a marker at the very start of the line (after color
+ * codes and spaces) is a system line. Announcements that open with a player name register with
+ * Anchor.AFTER_NAME: the marker must then follow exactly one Minecraft name.
+ * All markers of an anchor share one prefix trie, so a line is matched in a single walk from its
+ * start no matter how many handlers are registered. Color codes inside a marker are skipped.
+ * The first marker to complete wins.
+ */
+public class SystemLineDispatcher {
+
+    public enum Anchor {
+        // "Вы начали проверку игрока X"
+        LINE_START,
+        // "X был заблокирован"
+        AFTER_NAME
+    }
+
+    private static final char COLOR_CODE = '\u00a7';
+    private static final int MAX_NAME_LENGTH = 16;
+
+    private final List<String> markers = new ArrayList<>();
+    private final List<Anchor> anchors = new ArrayList<>();
+    private final List<SystemLineHandler> handlers = new ArrayList<>();
+
+    // Trie with one root per anchor (node = anchor ordinal), rebuilt lazily after registration
+    private char[][] edgeChars;
+    private int[][] edgeTargets;
+    private int[] output;
+    private volatile boolean built = false;
+
+    public SystemLineDispatcher register(String marker, SystemLineHandler handler) {
+        return register(marker, Anchor.LINE_START, handler);
+    }
+
+    public synchronized SystemLineDispatcher register(String marker, Anchor anchor, SystemLineHandler handler) {
+        if (marker == null || marker.isEmpty()) {
+            throw new IllegalArgumentException("Marker must not be empty");
+        }
+        markers.add(marker);
+        anchors.add(anchor);
+        handlers.add(handler);
+        built = false;
+        return this;
+    }
+
+    /**
+     * Match the start of the line and call the handler of the marker found there.
+     *
+     * @return true if a handler was called
+     */
+    public boolean dispatch(String line) {
+        if (line == null) return false;
+        if (!built) build();
+
+        int start = skipFormatting(line, 0);
+        if (match(line, start, Anchor.LINE_START.ordinal())) return true;
+
+        int nameEnd = nameEnd(line, start);
+        return nameEnd >= 0 && match(line, skipFormatting(line, nameEnd), Anchor.AFTER_NAME.ordinal());
+    }
+
+    private boolean match(String line, int from, int root) {
+        int state = root;
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == COLOR_CODE && i + 1 < line.length()) {
+                i++;
+                continue;
+            }
+            state = next(state, c);
+            if (state < 0) return false;
+
+            int marker = output[state];
+            if (marker >= 0) {
+                handlers.get(marker).handle(line, from, i + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Index of the first character that is neither whitespace nor part of a color code.
+     */
+    private static int skipFormatting(String line, int from) {
+        int i = from;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == COLOR_CODE && i + 1 < line.length()) {
+                i += 2;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Index just past a Minecraft name starting at from and followed by whitespace, -1 if there is none.
+     * Chat prefixes ("[Игрок] X:", "[X -> Я]") are not names, so chat never reaches AFTER_NAME markers.
+     */
+    private static int nameEnd(String line, int from) {
+        int i = from;
+        int length = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == COLOR_CODE && i + 1 < line.length()) {
+                i += 2;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                length++;
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (length == 0 || length > MAX_NAME_LENGTH) return -1;
+        return i < line.length() && Character.isWhitespace(line.charAt(i)) ? i : -1;
+    }
+
+    // ======================== TRIE ========================
+
+    private int next(int state, char c) {
+        char[] chars = edgeChars[state];
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) return edgeTargets[state][i];
+        }
+        return -1;
+    }
+
+    private synchronized void build() {
+        if (built) return;
+
+        List<StringBuilder> nodeChars = new ArrayList<>();
+        List<List<Integer>> nodeTargets = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        for (int root = 0; root < Anchor.values().length; root++) {
+            nodeChars.add(new StringBuilder());
+            nodeTargets.add(new ArrayList<>());
+            terminal.add(-1);
+        }
+
+        for (int m = 0; m < markers.size(); m++) {
+            String marker = markers.get(m);
+            int state = anchors.get(m).ordinal();
+            for (int i = 0; i < marker.length(); i++) {
+                char c = marker.charAt(i);
+                int idx = nodeChars.get(state).indexOf(String.valueOf(c));
+                if (idx >= 0) {
+                    state = nodeTargets.get(state).get(idx);
+                } else {
+                    int created = nodeChars.size();
+                    nodeChars.add(new StringBuilder());
+                    nodeTargets.add(new ArrayList<>());
+                    terminal.add(-1);
+                    nodeChars.get(state).append(c);
+                    nodeTargets.get(state).add(created);
+                    state = created;
+                }
+            }
+            // First registration of a duplicate marker keeps it
+            if (terminal.get(state) < 0) terminal.set(state, m);
+        }
+
+        int count = nodeChars.size();
+        char[][] chars = new char[count][];
+        int[][] targets = new int[count][];
+        int[] outputs = new int[count];
+        for (int n = 0; n < count; n++) {
+            chars[n] = nodeChars.get(n).toString().toCharArray();
+            targets[n] = nodeTargets.get(n).stream().mapToInt(Integer::intValue).toArray();
+            outputs[n] = terminal.get(n);
+        }
+
+        edgeChars = chars;
+        edgeTargets = targets;
+        output = outputs;
+        built = true;
+    }
+}
@@ -0,0 +1,15 @@
+package com.holyworld.autoreply.handler;
+
+/**
+ * Reacts to one kind of HolyWorld system chat line.
+ */
+@FunctionalInterface
+public interface SystemLineHandler {
+
+    /**
+     * @param line        raw chat line as received
+     * @param markerStart index of the first character of the matched marker
+     * @param markerEnd   index just past the matched marker
+     */
+    void handle(String line, int markerStart, int markerEnd);
+}